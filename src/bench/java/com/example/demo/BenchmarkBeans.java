@@ -0,0 +1,29 @@
+package com.example.demo;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Builds one application bean for a JMH benchmark the way the application context does:
+ * its @Value fields come from the given properties and its @PostConstruct runs. The given
+ * dependencies are the only other beans, so nothing else of the application starts.
+ */
+public final class BenchmarkBeans {
+
+    private BenchmarkBeans() {
+    }
+
+
+    public static <T> T create(Class<T> type, Map<String, Object> properties, Object... dependencies) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        for (Object dependency : dependencies) {
+            context.getBeanFactory().registerSingleton(dependency.getClass().getName(), dependency);
+        }
+        context.registerBean(type);
+        context.refresh();
+        return context.getBean(type);
+    }
+}
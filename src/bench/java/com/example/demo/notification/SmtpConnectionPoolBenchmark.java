@@ -0,0 +1,108 @@
+package com.example.demo.notification;
+
+import com.example.demo.notification.services.SmtpConnectionPool;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sends MESSAGES emails to a local GreenMail server twice, once in batches of BATCH over the
+ * pool's kept-open connections and once through JavaMailSender, which connects per message,
+ * and logs emails per second and the connections the pool opened. GreenMail has no STARTTLS
+ * or AUTH round trips worth mentioning, so a remote server widens the gap shown here.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Slf4j
+class SmtpConnectionPoolBenchmark {
+
+    private static final int MESSAGES = 500;
+    private static final int BATCH = 50;
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("test", "test"));
+
+    @Autowired
+    private SmtpConnectionPool smtpConnectionPool;
+
+    @Autowired
+    private JavaMailSenderImpl mailSender;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+
+    @Test
+    void comparePooledWithConnectionPerMessage() throws Exception {
+        // the first pass warms up the JIT and the server
+        pooled();
+
+        double perMessage = run("connection per message", () -> {
+            for (MimeMessage message : messages(MESSAGES)) {
+                mailSender.send(message);
+            }
+        });
+        double pooled = run("pooled", this::pooled);
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(3 * MESSAGES);
+        log.info("pooled sends {}x the emails per second", String.format("%.1f", pooled / perMessage));
+    }
+
+
+    private void pooled() throws MessagingException {
+        List<MimeMessage> messages = messages(MESSAGES);
+        for (int i = 0; i < messages.size(); i += BATCH) {
+            assertThat(smtpConnectionPool.sendAll(messages.subList(i, i + BATCH))).containsOnlyNulls();
+        }
+    }
+
+
+    private double run(String name, Pass pass) throws Exception {
+        double connectsBefore = meterRegistry.counter("notification.smtp.connects").count();
+        long startedAt = System.nanoTime();
+        pass.run();
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+
+        double perSecond = MESSAGES / seconds;
+        log.info("{}: {} emails, {} emails/s, {} pool connects", name, MESSAGES, String.format("%.0f", perSecond),
+                meterRegistry.counter("notification.smtp.connects").count() - connectsBefore);
+        return perSecond;
+    }
+
+
+    private List<MimeMessage> messages(int count) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+            helper.setFrom("bank@example.com");
+            helper.setTo("user" + (i % 100) + "@example.com");
+            helper.setSubject("Benchmark " + i);
+            helper.setText("<p>Your balance changed.</p>", true);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+
+    private interface Pass {
+        void run() throws Exception;
+    }
+}
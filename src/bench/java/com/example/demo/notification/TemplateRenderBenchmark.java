@@ -0,0 +1,103 @@
+package com.example.demo.notification;
+
+import com.example.demo.BenchmarkBeans;
+import com.example.demo.config.AppConfig;
+import com.example.demo.notification.services.TemplateRenderer;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: a credit alert rendered through TemplateRenderer on the configured engine (parsed
+ * template cached, per-thread Context and buffer), through the same engine with a new Context
+ * and String per render as before, and through an engine that re-parses the template on every
+ * render. Four threads share each renderer and engine, as the notification workers do, so the
+ * per-thread buffers are exercised the way they are in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TemplateRenderBenchmark {
+
+    private static final String TEMPLATE = "credit-alert";
+
+    private TemplateRenderer renderer;
+    private TemplateEngine cachedEngine;
+    private TemplateEngine uncachedEngine;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setUp() {
+        cachedEngine = new AppConfig().templateEngine(0, 50, 2000);
+        renderer = BenchmarkBeans.create(TemplateRenderer.class,
+                Map.of("templates.render.max-retained-buffer", 262144), cachedEngine);
+
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCacheable(false);
+        engine.setTemplateResolver(resolver);
+        uncachedEngine = engine;
+
+        variables = Map.of(
+                "name", "Ada",
+                "amount", new BigDecimal("125.50"),
+                "accountNumber", "0123456789",
+                "date", LocalDateTime.of(2026, 1, 15, 10, 30),
+                "balance", new BigDecimal("1042.75"));
+    }
+
+
+    @Benchmark
+    public String cachedRenderer() {
+        return renderer.render(TEMPLATE, variables);
+    }
+
+
+    @Benchmark
+    public String cachedEngineNewContext() {
+        return cachedEngine.process(TEMPLATE, new Context(Locale.getDefault(), variables));
+    }
+
+
+    @Benchmark
+    public String uncachedEngine() {
+        return uncachedEngine.process(TEMPLATE, new Context(Locale.getDefault(), variables));
+    }
+
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder().include(getClass().getName() + "\\.").build()).run();
+    }
+}
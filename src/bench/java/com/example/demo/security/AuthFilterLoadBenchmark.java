@@ -0,0 +1,137 @@
+package com.example.demo.security;
+
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.auth_users.repo.UserRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Authenticated requests per second through AuthFilter, from THREADS threads presenting the
+ * tokens of USERS users, as the median of ROUNDS runs after a warm-up. Every request must end
+ * up authenticated. Each subclass sets security.jwt.stateless and cache.users.ttl-ms for one
+ * way of resolving a token's user: its claims, the user cache, or the database every time.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Slf4j
+abstract class AuthFilterLoadBenchmark {
+
+    private static final int USERS = 200;
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 2000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private AuthFilter authFilter;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private UserRepo userRepository;
+
+    @Value("${security.jwt.stateless}")
+    private boolean statelessAuth;
+
+    @Value("${cache.users.ttl-ms}")
+    private long userCacheTtlMs;
+
+    private List<String> tokens;
+
+
+    @BeforeEach
+    void signUp() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        tokens = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = userRepository.save(User.builder()
+                    .firstName("Load")
+                    .lastName("Test")
+                    .email("load-" + run + "-" + i + "@example.com")
+                    .active(true)
+                    .roles(List.of())
+                    .build());
+            tokens.add(tokenService.generateToken(user));
+        }
+    }
+
+
+    @Test
+    void measure() throws Exception {
+        // warms up the JIT, the token and user caches and the pool for this mode's code path
+        authenticateConcurrently();
+
+        List<Double> rounds = new ArrayList<>(ROUNDS);
+        for (int round = 0; round < ROUNDS; round++) {
+            rounds.add(authenticateConcurrently());
+        }
+        String mode = statelessAuth ? "stateless" : userCacheTtlMs > 0 ? "user cache" : "database";
+        log.info("auth filter, {}: {} requests/s with {} threads, median of {} rounds",
+                mode, String.format("%.0f", median(rounds)), THREADS, ROUNDS);
+    }
+
+
+    private double authenticateConcurrently() throws Exception {
+        AtomicInteger unauthenticated = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+                    request.addHeader("Authorization", "Bearer " + tokens.get(random.nextInt(tokens.size())));
+                    authFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+                    if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                        unauthenticated.incrementAndGet();
+                    }
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        pool.shutdown();
+
+        assertThat(unauthenticated.get()).as("requests the filter did not authenticate").isZero();
+        return THREADS * REQUESTS_PER_THREAD / seconds;
+    }
+
+
+    private static double median(List<Double> values) {
+        double[] sorted = values.stream().mapToDouble(Double::doubleValue).toArray();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.security;
+
+import org.springframework.test.context.TestPropertySource;
+
+// cache entries expire at once, so every request loads its user from the database
+@TestPropertySource(properties = {
+        "security.jwt.stateless=false",
+        "cache.users.ttl-ms=0"})
+class DatabaseAuthFilterLoadBenchmark extends AuthFilterLoadBenchmark {
+}
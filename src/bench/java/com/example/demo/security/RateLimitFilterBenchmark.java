@@ -0,0 +1,115 @@
+package com.example.demo.security;
+
+import com.example.demo.BenchmarkBeans;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: the rate-limit filter for one hot client (every thread CASes the same bucket), for
+ * clients spread over many buckets, and for new clients turned away by a full bucket map.
+ * Buckets hold far more tokens than a run takes, so every call is allowed and the numbers are
+ * the filter's own overhead, not the cost of answering 429.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimitFilterBenchmark {
+
+    private static final int CLIENTS = 10_000;
+
+    private RateLimitFilter filter;
+    private RateLimitFilter fullFilter;
+    private MockHttpServletRequest[] requests;
+    private MockHttpServletRequest newClient;
+
+    @Setup
+    public void setUp() throws Exception {
+        // a bucket that never runs dry, so every call takes the acquire path
+        filter = filter(CLIENTS);
+        fullFilter = filter(1);
+
+        requests = new MockHttpServletRequest[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            requests[i] = login("10.0." + (i >> 8) + "." + (i & 0xff));
+        }
+        newClient = login("192.168.0.1");
+        fullFilter.doFilter(requests[0], new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+
+    @Benchmark
+    public int hotClient() throws Exception {
+        return call(filter, requests[0]);
+    }
+
+
+    @Benchmark
+    public int spreadClients() throws Exception {
+        return call(filter, requests[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+    }
+
+
+    @Benchmark
+    public int newClientOnFullMap() throws Exception {
+        return call(fullFilter, newClient);
+    }
+
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder().include(getClass().getName() + "\\.").build()).run();
+    }
+
+
+    private static int call(RateLimitFilter filter, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+
+    private static RateLimitFilter filter(int maxBuckets) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("rate-limit.enabled", true);
+        properties.put("rate-limit.max-buckets", maxBuckets);
+        for (String rule : new String[]{"login", "forgot-password", "transactions"}) {
+            properties.put("rate-limit." + rule + ".capacity", "1e12");
+            properties.put("rate-limit." + rule + ".refill-per-minute", "1e12");
+        }
+        return BenchmarkBeans.create(RateLimitFilter.class, properties, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+
+    private static MockHttpServletRequest login(String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(ip);
+        return request;
+    }
+}
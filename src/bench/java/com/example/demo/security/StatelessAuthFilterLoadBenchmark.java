@@ -0,0 +1,8 @@
+package com.example.demo.security;
+
+import org.springframework.test.context.TestPropertySource;
+
+// the token's claims, checked against the cached security version
+@TestPropertySource(properties = "security.jwt.stateless=true")
+class StatelessAuthFilterLoadBenchmark extends AuthFilterLoadBenchmark {
+}
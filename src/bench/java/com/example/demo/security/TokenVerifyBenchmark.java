@@ -0,0 +1,97 @@
+package com.example.demo.security;
+
+import com.example.demo.BenchmarkBeans;
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.role.entity.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: TokenService.verify() for a token already in the cache, for a working set twice the
+ * cache size (every miss evicts), and the bare signature check the cache saves. The gap between
+ * the first and the last is what a cache hit is worth; the middle one is the worst case, where
+ * the cache only adds its bookkeeping to every verification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TokenVerifyBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+    private static final int CACHE_SIZE = 10_000;
+
+    private TokenService tokenService;
+    private JwtParser parser;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        tokenService = BenchmarkBeans.create(TokenService.class, Map.of(
+                "secret.jwt.string", SECRET,
+                "expiration.token.time", TimeUnit.HOURS.toMillis(1),
+                "security.jwt.verified-cache.max-entries", CACHE_SIZE), new SimpleMeterRegistry());
+        parser = Jwts.parser().verifyWith(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256")).build();
+
+        Role customer = Role.builder().name("CUSTOMER").build();
+        tokens = new String[2 * CACHE_SIZE];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = tokenService.generateToken(User.builder()
+                    .id((long) i)
+                    .email("user" + i + "@example.com")
+                    .roles(List.of(customer))
+                    .build());
+        }
+    }
+
+
+    @Benchmark
+    public VerifiedToken cachedToken() {
+        return tokenService.verify(tokens[0]);
+    }
+
+
+    @Benchmark
+    public VerifiedToken workingSetTwiceTheCache() {
+        return tokenService.verify(tokens[ThreadLocalRandom.current().nextInt(tokens.length)]);
+    }
+
+
+    @Benchmark
+    public Claims signatureCheckOnly() {
+        return parser.parseSignedClaims(tokens[0]).getPayload();
+    }
+
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder().include(getClass().getName() + "\\.").build()).run();
+    }
+}
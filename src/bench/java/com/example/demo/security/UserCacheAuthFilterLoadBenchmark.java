@@ -0,0 +1,8 @@
+package com.example.demo.security;
+
+import org.springframework.test.context.TestPropertySource;
+
+// the user looked up by the token's email through the user cache
+@TestPropertySource(properties = "security.jwt.stateless=false")
+class UserCacheAuthFilterLoadBenchmark extends AuthFilterLoadBenchmark {
+}
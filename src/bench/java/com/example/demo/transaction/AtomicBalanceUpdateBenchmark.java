@@ -0,0 +1,8 @@
+package com.example.demo.transaction;
+
+import org.springframework.test.context.TestPropertySource;
+
+// one guarded UPDATE per movement, checked against the balance in the same statement
+@TestPropertySource(properties = "transaction.balance.atomic-update=true")
+class AtomicBalanceUpdateBenchmark extends BalanceUpdateBenchmark {
+}
@@ -0,0 +1,135 @@
+package com.example.demo.transaction;
+
+import com.example.demo.AccountFixture;
+import com.example.demo.account.entity.Account;
+import com.example.demo.account.repo.AccountRepo;
+import com.example.demo.enums.TransactionType;
+import com.example.demo.transaction.dtos.TransactionRequest;
+import com.example.demo.transaction.services.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Random deposits and withdrawals from 16 threads on four accounts, measuring movements per
+ * second, SQL statements per movement and how far the final total drifts from the movements
+ * that succeeded. Each subclass runs one setting of transaction.balance.atomic-update; only
+ * the guarded UPDATE is required to lose nothing, the read-modify-write drift is just logged.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Slf4j
+abstract class BalanceUpdateBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int MOVEMENTS_PER_THREAD = 250;
+    private static final int ACCOUNTS = 4;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepo accountRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AccountFixture accountFixture;
+
+    @Value("${transaction.balance.atomic-update}")
+    private boolean atomicUpdate;
+
+
+    @Test
+    void measure() throws Exception {
+        // the first pass warms up the JIT, the pool and the statement caches
+        run();
+
+        BigDecimal lost = run();
+
+        if (atomicUpdate) {
+            assertThat(lost).isEqualByComparingTo(BigDecimal.ZERO);
+        }
+    }
+
+
+    // returns how far the final total is off from what the successful movements should give
+    private BigDecimal run() throws Exception {
+        List<Account> accounts = accountFixture.open(ACCOUNTS, OPENING_BALANCE);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        AtomicInteger net = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < MOVEMENTS_PER_THREAD; i++) {
+                    boolean deposit = random.nextBoolean();
+                    try {
+                        transactionService.createTransaction(movement(accounts.get(random.nextInt(ACCOUNTS)), deposit));
+                        net.addAndGet(deposit ? 1 : -1);
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        statistics.clear();
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        pool.shutdown();
+
+        int movements = THREADS * MOVEMENTS_PER_THREAD;
+        BigDecimal expected = OPENING_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS)).add(BigDecimal.valueOf(net.get()));
+        BigDecimal actual = accountRepository.findAllById(accounts.stream().map(Account::getId).toList()).stream()
+                .map(Account::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        log.info("{}: {} movements, {} failed, {} movements/s, {} statements per movement, off by {}",
+                atomicUpdate ? "guarded UPDATE" : "read-modify-write", movements, failed.get(),
+                String.format("%.0f", movements / seconds),
+                String.format("%.1f", (double) statistics.getPrepareStatementCount() / movements),
+                expected.subtract(actual));
+        return expected.subtract(actual).abs();
+    }
+
+
+    private static TransactionRequest movement(Account account, boolean deposit) {
+        TransactionRequest request = new TransactionRequest();
+        request.setTransactionType(deposit ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL);
+        request.setAccountNumber(account.getAccountNumber());
+        request.setAmount(BigDecimal.ONE);
+        request.setDescription("benchmark");
+        return request;
+    }
+}
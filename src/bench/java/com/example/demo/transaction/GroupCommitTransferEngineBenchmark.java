@@ -0,0 +1,8 @@
+package com.example.demo.transaction;
+
+import org.springframework.test.context.TestPropertySource;
+
+// one writer coalescing many movements into one DB commit
+@TestPropertySource(properties = "transaction.engine.mode=GROUP_COMMIT")
+class GroupCommitTransferEngineBenchmark extends TransferEngineBenchmark {
+}
@@ -0,0 +1,8 @@
+package com.example.demo.transaction;
+
+import org.springframework.test.context.TestPropertySource;
+
+// row locks taken in ascending id order, lock waits retried
+@TestPropertySource(properties = "transaction.engine.mode=JPA")
+class JpaTransferEngineBenchmark extends TransferEngineBenchmark {
+}
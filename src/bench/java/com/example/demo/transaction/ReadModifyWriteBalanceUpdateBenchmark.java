@@ -0,0 +1,8 @@
+package com.example.demo.transaction;
+
+import org.springframework.test.context.TestPropertySource;
+
+// the legacy path: load the Account entity, change its balance, flush it
+@TestPropertySource(properties = "transaction.balance.atomic-update=false")
+class ReadModifyWriteBalanceUpdateBenchmark extends BalanceUpdateBenchmark {
+}
@@ -0,0 +1,8 @@
+package com.example.demo.transaction;
+
+import org.springframework.test.context.TestPropertySource;
+
+// a single writer thread per account shard, DB row locks as in JPA mode
+@TestPropertySource(properties = "transaction.engine.mode=SHARDED")
+class ShardedTransferEngineBenchmark extends TransferEngineBenchmark {
+}
@@ -0,0 +1,63 @@
+package com.example.demo.transaction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Transfers per second on three workloads: one contended pair, 20 accounts and 1000 accounts,
+ * each the median of ROUNDS runs after a warm-up. The pair shows lock contention, 1000
+ * accounts the cost per transfer when rows rarely collide. Each subclass runs one
+ * transaction.engine.mode, and its results are logged as one row of the comparison table.
+ * The stress tests inherited from TransferStressTestSupport run as well.
+ */
+@Slf4j
+abstract class TransferEngineBenchmark extends TransferStressTestSupport {
+
+    private static final int ROUNDS = 3;
+    private static final Map<String, Integer> WORKLOADS = new LinkedHashMap<>();
+
+    static {
+        WORKLOADS.put("opposing pair", 2);
+        WORKLOADS.put("20 accounts", 20);
+        WORKLOADS.put("1000 accounts", 1000);
+    }
+
+
+    @Test
+    void measure() throws Exception {
+        // warms up the JIT, the pool and the statement caches for this mode's code path
+        transferConcurrently("warm-up", openAccounts(20));
+
+        Map<String, Double> perWorkload = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> workload : WORKLOADS.entrySet()) {
+            List<Double> rounds = new ArrayList<>(ROUNDS);
+            for (int round = 0; round < ROUNDS; round++) {
+                Outcome outcome = transferConcurrently(workload.getKey(), openAccounts(workload.getValue()));
+                assertThat(outcome.failures()).as(workload.getKey()).isEmpty();
+                rounds.add(outcome.transfersPerSecond());
+            }
+            perWorkload.put(workload.getKey(), median(rounds));
+        }
+
+        StringBuilder table = new StringBuilder(String.format("%n%-14s", "transfers/s"));
+        WORKLOADS.keySet().forEach(workload -> table.append(String.format("%16s", workload)));
+        table.append(String.format("%n%-14s", engineMode));
+        perWorkload.values().forEach(rate -> table.append(String.format("%16.0f", rate)));
+        log.info("engine mode {}, median of {} rounds:{}", engineMode, ROUNDS, table);
+    }
+
+
+    private static double median(List<Double> values) {
+        double[] sorted = values.stream().mapToDouble(Double::doubleValue).toArray();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.account.dtos;
+
+import java.math.BigDecimal;
+
+/**
+ * An account's balance as read right after a guarded UPDATE, with the ids a movement needs
+ * to reference the account and alert its owner without loading either entity.
+ */
+public record AccountBalance(Long id, Long userId, BigDecimal balance) {
+}
@@ -1,19 +1,72 @@
 package com.example.demo.account.repo;
 
+import com.example.demo.account.dtos.AccountBalance;
 import com.example.demo.account.entity.Account;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 
 public interface AccountRepo extends JpaRepository<Account, Long> {
 
+    // upper bound (ms) a money movement waits for a row lock before giving up
+    String LOCK_TIMEOUT_MS = "3000";
+
     Optional<Account> findByAccountNumber(String accountNumber);
 
     List<Account> findByUserId(Long userId);
 
+    // resolves the id only, so the row can be locked afterwards in a fixed order
+    @Query("SELECT a.id FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Long> findIdByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = LOCK_TIMEOUT_MS))
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT a.id FROM Account a WHERE a.accountNumber IN :accountNumbers")
+    List<Long> findIdsByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    // rows are locked in ascending id order, the same order single transfers use
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = LOCK_TIMEOUT_MS))
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    // single guarded statements; the affected-row count tells whether the movement was applied.
+    // They bypass the persistence context, so a copy of the account already loaded in it is stale
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.updatedAt = :now " +
+            "WHERE a.accountNumber = :accountNumber AND a.status = com.example.demo.enums.AccountStatus.ACTIVE")
+    int creditIfActive(@Param("accountNumber") String accountNumber,
+                       @Param("amount") BigDecimal amount,
+                       @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.updatedAt = :now " +
+            "WHERE a.accountNumber = :accountNumber AND a.balance >= :amount " +
+            "AND a.status = com.example.demo.enums.AccountStatus.ACTIVE")
+    int debitIfSufficient(@Param("accountNumber") String accountNumber,
+                          @Param("amount") BigDecimal amount,
+                          @Param("now") LocalDateTime now);
+
+    // MySQL's UPDATE returns no values, so the new balance is read back by the unique account number
+    @Query("SELECT new com.example.demo.account.dtos.AccountBalance(a.id, a.user.id, a.balance) " +
+            "FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<AccountBalance> findBalanceByAccountNumber(@Param("accountNumber") String accountNumber);
+
 
     long count();
 }
-
@@ -4,13 +4,13 @@ import com.example.demo.account.dtos.AccountDTO;
 import com.example.demo.account.entity.Account;
 import com.example.demo.account.repo.AccountRepo;
 import com.example.demo.auth_users.entity.User;
-import com.example.demo.auth_users.services.UserService;
 import com.example.demo.enums.AccountStatus;
 import com.example.demo.enums.AccountType;
 import com.example.demo.enums.Currency;
 import com.example.demo.exceptions.BadRequestException;
 import com.example.demo.exceptions.NotFoundException;
 import com.example.demo.res.Response;
+import com.example.demo.security.CurrentUser;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
@@ -28,7 +28,7 @@ import java.util.stream.Collectors;
 public class AccountServiceImpl implements AccountService {
 
     private final AccountRepo accountRepository;
-    private final UserService userService;
+    private final CurrentUser currentUser;
     private final ModelMapper modelMapper;
 
     @Override
@@ -67,9 +67,7 @@ public class AccountServiceImpl implements AccountService {
 
     @Override
     public Response<List<AccountDTO>> getAccountsOfUser() {
-        User user = userService.getCurrentLoggedInUser();
-
-        List<AccountDTO> accounts = accountRepository.findByUserId(user.getId())
+        List<AccountDTO> accounts = accountRepository.findByUserId(currentUser.getId())
                 .stream()
                 .map(account -> modelMapper.map(account, AccountDTO.class))
                 .collect(Collectors.toList());
@@ -83,12 +81,12 @@ public class AccountServiceImpl implements AccountService {
 
     @Override
     public Response<?> closeAccount(String accountNumber) {
-        User user = userService.getCurrentLoggedInUser();
+        Long userId = currentUser.getId();
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new NotFoundException("Account not found"));
 
-        if (!user.getAccounts().contains(account)) {
+        if (account.getUser() == null || !account.getUser().getId().equals(userId)) {
             throw new NotFoundException("Account doesn't belong to you");
         }
 
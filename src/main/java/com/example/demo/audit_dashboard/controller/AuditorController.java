@@ -3,15 +3,24 @@ package com.example.demo.audit_dashboard.controller;
 import com.example.demo.auth_users.dtos.UserDTO;
 import com.example.demo.account.dtos.AccountDTO;
 import com.example.demo.audit_dashboard.service.AuditorService;
+import com.example.demo.enums.ExportFormat;
+import com.example.demo.exceptions.NotFoundException;
+import com.example.demo.ledger.dtos.LedgerPage;
 import com.example.demo.transaction.dtos.TransactionDTO;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/audit")
@@ -49,10 +58,62 @@ public class AuditorController {
         return ResponseEntity.ok(transactions);
     }
 
+    /**
+     * The same postings newest first, one keyset page at a time; pass the returned nextCursor to get the next page.
+     */
+    @GetMapping("/transactions/by-account/page")
+    public ResponseEntity<LedgerPage> getTransactionPageByAccountNumber(
+            @RequestParam String accountNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size
+    ) {
+        Optional<LedgerPage> page = adminService.findTransactionPageByAccountNumber(accountNumber, cursor, size);
+        if (page.isEmpty() || page.get().getItems().isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(page.get());
+    }
+
     @GetMapping("/transactions/by-id")
     public ResponseEntity<TransactionDTO> getTransactionById(@RequestParam Long id) {
         Optional<TransactionDTO> transaction = adminService.findTransactionById(id);
         return transaction.map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
-}
\ No newline at end of file
+
+    /**
+     * Streams all postings of an account as CSV or NDJSON, optionally gzipped and limited to [from, to).
+     */
+    @GetMapping("/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam String accountNumber,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        // resolved before streaming starts, so an unknown account is still a clean 404
+        Long accountId = adminService.findAccountIdByAccountNumber(accountNumber)
+                .orElseThrow(() -> new NotFoundException("Account not found"));
+
+        String extension = format == ExportFormat.CSV ? "csv" : "ndjson";
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024)) {
+                    adminService.exportTransactions(accountId, format, from, to, gzipOut);
+                }
+            } else {
+                adminService.exportTransactions(accountId, format, from, to, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format == ExportFormat.CSV ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions-" + accountNumber + "." + extension + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
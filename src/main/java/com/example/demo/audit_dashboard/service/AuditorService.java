@@ -2,8 +2,12 @@ package com.example.demo.audit_dashboard.service;
 
 import com.example.demo.account.dtos.AccountDTO;
 import com.example.demo.auth_users.dtos.UserDTO;
+import com.example.demo.enums.ExportFormat;
+import com.example.demo.ledger.dtos.LedgerPage;
 import com.example.demo.transaction.dtos.TransactionDTO;
 
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -16,7 +20,24 @@ public interface AuditorService {
 
     Optional<AccountDTO> findAccountDetailsByAccountNumber(String accountNumber);
 
+    /**
+     * All of the account's postings, oldest first; empty for an unknown account.
+     */
     List<TransactionDTO> findTransactionsByAccountNumber(String accountNumber);
 
+    /**
+     * One keyset page of the account's postings, newest first; the full history goes through exportTransactions.
+     */
+    Optional<LedgerPage> findTransactionPageByAccountNumber(String accountNumber, String cursor, int size);
+
     Optional<TransactionDTO> findTransactionById(Long transactionId);
+
+    Optional<Long> findAccountIdByAccountNumber(String accountNumber);
+
+    /**
+     * Streams the account's ledger postings (oldest first) straight to out, row by row,
+     * so memory use does not depend on how many postings the account has.
+     * from is inclusive, to exclusive, both optional.
+     */
+    void exportTransactions(Long accountId, ExportFormat format, LocalDateTime from, LocalDateTime to, OutputStream out);
 }
\ No newline at end of file
@@ -4,16 +4,38 @@ import com.example.demo.account.dtos.AccountDTO;
 import com.example.demo.account.repo.AccountRepo;
 import com.example.demo.auth_users.dtos.UserDTO;
 import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.enums.ExportFormat;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.ledger.dtos.LedgerPage;
+import com.example.demo.ledger.services.LedgerService;
 import com.example.demo.transaction.dtos.TransactionDTO;
 import com.example.demo.transaction.repo.TransactionRepo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,7 +44,29 @@ public class AuditorServiceImpl implements AuditorService {
     private final UserRepo userRepo;
     private final AccountRepo accountRepo;
     private final TransactionRepo transactionRepo;
+    private final LedgerService ledgerService;
     private final ModelMapper modelMapper;
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+
+    private static final String EXPORT_COLUMNS = "id,transactionId,postedAt,entryType,transactionType," +
+            "amount,balanceAfter,counterpartyAccount,description";
+
+    // MySQL Connector/J streams rows one by one only with Integer.MIN_VALUE (or with useCursorFetch=true in the URL)
+    @Value("${audit.export.fetch-size}")
+    private int exportFetchSize;
+
+    @Value("${audit.transactions.max-page-size}")
+    private int maxPageSize;
+
+    private JdbcTemplate exportJdbcTemplate;
+
+    @PostConstruct
+    private void init() {
+        // own template, so the cursor fetch size does not leak into other queries
+        exportJdbcTemplate = new JdbcTemplate(dataSource);
+        exportJdbcTemplate.setFetchSize(exportFetchSize);
+    }
 
     @Override
     public Map<String, Long> getSystemTotals() {
@@ -51,9 +95,20 @@ public class AuditorServiceImpl implements AuditorService {
 
     @Override
     public List<TransactionDTO> findTransactionsByAccountNumber(String accountNumber) {
-        return transactionRepo.findByAccount_AccountNumber(accountNumber).stream()
-                .map(transaction -> modelMapper.map(transaction, TransactionDTO.class))
-                .collect(Collectors.toList());
+        // ledger postings include transfers received by the account, not only the ones it sent
+        return accountRepo.findIdByAccountNumber(accountNumber)
+                .map(ledgerService::getFullAccountHistory)
+                .orElse(List.of());
+    }
+
+    @Override
+    public Optional<LedgerPage> findTransactionPageByAccountNumber(String accountNumber, String cursor, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new BadRequestException("Page size must be between 1 and " + maxPageSize);
+        }
+        // ledger postings include transfers received by the account, not only the ones it sent
+        return accountRepo.findIdByAccountNumber(accountNumber)
+                .map(accountId -> ledgerService.getAccountHistoryAfter(accountId, cursor, size));
     }
 
     @Override
@@ -61,4 +116,101 @@ public class AuditorServiceImpl implements AuditorService {
         return transactionRepo.findById(transactionId)
                 .map(transaction -> modelMapper.map(transaction, TransactionDTO.class));
     }
-}
\ No newline at end of file
+
+    @Override
+    public Optional<Long> findAccountIdByAccountNumber(String accountNumber) {
+        return accountRepo.findIdByAccountNumber(accountNumber);
+    }
+
+    @Override
+    public void exportTransactions(Long accountId, ExportFormat format, LocalDateTime from, LocalDateTime to, OutputStream out) {
+        StringBuilder sql = new StringBuilder("SELECT id, transaction_id, posted_at, entry_type, transaction_type, amount, " +
+                "balance_after, counterparty_account, description FROM ledger_entries WHERE account_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(accountId);
+        if (from != null) {
+            sql.append(" AND posted_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND posted_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY posted_at, id");
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            if (format == ExportFormat.CSV) {
+                writer.write(EXPORT_COLUMNS);
+                writer.write('\n');
+                exportJdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> writeCsvRow(rs, writer), args.toArray());
+            } else {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // every row ends with its own '\n', so no " " between root values
+                generator.setRootValueSeparator(null);
+                exportJdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> writeJsonRow(rs, generator), args.toArray());
+                generator.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Transaction export failed", e);
+        }
+    }
+
+
+    private void writeCsvRow(ResultSet rs, Writer writer) throws SQLException {
+        try {
+            writer.write(rs.getString("id"));
+            writer.write(',');
+            writer.write(rs.getString("transaction_id"));
+            writer.write(',');
+            writer.write(rs.getTimestamp("posted_at").toLocalDateTime().toString());
+            writer.write(',');
+            writer.write(rs.getString("entry_type"));
+            writer.write(',');
+            writer.write(rs.getString("transaction_type"));
+            writer.write(',');
+            writer.write(rs.getBigDecimal("amount").toPlainString());
+            writer.write(',');
+            writer.write(rs.getBigDecimal("balance_after").toPlainString());
+            writer.write(',');
+            writer.write(csvField(rs.getString("counterparty_account")));
+            writer.write(',');
+            writer.write(csvField(rs.getString("description")));
+            writer.write('\n');
+        } catch (IOException e) {
+            // usually the client went away; abort the query instead of reading the rest of the cursor
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    private void writeJsonRow(ResultSet rs, JsonGenerator generator) throws SQLException {
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("id"));
+            generator.writeNumberField("transactionId", rs.getLong("transaction_id"));
+            generator.writeStringField("postedAt", rs.getTimestamp("posted_at").toLocalDateTime().toString());
+            generator.writeStringField("entryType", rs.getString("entry_type"));
+            generator.writeStringField("transactionType", rs.getString("transaction_type"));
+            generator.writeNumberField("amount", rs.getBigDecimal("amount"));
+            generator.writeNumberField("balanceAfter", rs.getBigDecimal("balance_after"));
+            generator.writeStringField("counterpartyAccount", rs.getString("counterparty_account"));
+            generator.writeStringField("description", rs.getString("description"));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
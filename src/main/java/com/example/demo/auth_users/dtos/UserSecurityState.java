@@ -0,0 +1,8 @@
+package com.example.demo.auth_users.dtos;
+
+/**
+ * What a stateless token is checked against: tokens carrying an older security version,
+ * or belonging to an inactive user, are rejected.
+ */
+public record UserSecurityState(long securityVersion, boolean active) {
+}
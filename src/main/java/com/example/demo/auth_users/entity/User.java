@@ -41,6 +41,10 @@ public class User {
 
     private boolean active = true;
 
+    // bumped on password and role changes; tokens issued with an older value are rejected
+    @Column(nullable = false)
+    private long securityVersion;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "users_roles",
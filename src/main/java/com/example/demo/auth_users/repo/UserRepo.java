@@ -1,7 +1,12 @@
 package com.example.demo.auth_users.repo;
 
+import com.example.demo.auth_users.dtos.UserSecurityState;
 import com.example.demo.auth_users.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -10,6 +15,22 @@ public interface UserRepo extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    @Query("SELECT new com.example.demo.auth_users.dtos.UserSecurityState(u.securityVersion, u.active) " +
+            "FROM User u WHERE u.id = :id")
+    Optional<UserSecurityState> findSecurityStateById(@Param("id") Long id);
+
+    // guarded by the old hash, so a concurrent password change is never overwritten
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int upgradePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    // every holder of the role gets a new version, so tokens naming the old role set stop working
+    @Modifying
+    @Query(value = "UPDATE users u JOIN users_roles ur ON ur.user_id = u.id " +
+            "SET u.security_version = u.security_version + 1 WHERE ur.role_id = :roleId", nativeQuery = true)
+    int bumpSecurityVersionForRole(@Param("roleId") Long roleId);
+
 
     long count();
 
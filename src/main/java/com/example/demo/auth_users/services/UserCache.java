@@ -0,0 +1,171 @@
+package com.example.demo.auth_users.services;
+
+import com.example.demo.account.entity.Account;
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.config.TransactionCallbacks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-through cache of users (with their roles) by id, plus an email → id index. Entries
+ * are detached snapshots shared by every caller: read their columns and roles, or pass one
+ * where only the id is needed (an FK), but load a managed copy from {@link UserRepo} before
+ * changing one, and evict it after the change. {@code accounts} is never loaded on a
+ * snapshot; touching it fails with an IllegalStateException instead of a lazy-loading error
+ * some time later, so query {@code AccountRepo} for them.
+ * <p>
+ * Only the id-keyed cache holds users, so an email change can never leave two copies; a
+ * stale email mapping is detected on lookup and dropped. Other instances see changes
+ * within ttl-ms.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCache {
+
+    private final UserRepo userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${cache.users.max-size}")
+    private long maxSize;
+
+    @Value("${cache.users.ttl-ms}")
+    private long ttlMs;
+
+    private Cache<Long, User> usersById;
+    private Cache<String, Long> idsByEmail;
+
+    @PostConstruct
+    private void init() {
+        usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByEmail, "user_ids_by_email");
+    }
+
+
+    public Optional<User> findById(Long id) {
+        // the loader returns null for unknown ids, which Caffeine does not cache
+        return Optional.ofNullable(usersById.get(id, key -> userRepository.findById(key).map(UserCache::snapshot).orElse(null)));
+    }
+
+
+    public Optional<User> findByEmail(String email) {
+        Long id = idsByEmail.getIfPresent(email);
+        if (id != null) {
+            Optional<User> user = findById(id);
+            if (user.isPresent() && email.equals(user.get().getEmail())) {
+                return user;
+            }
+            // the email moved to another user or the user is gone
+            idsByEmail.invalidate(email);
+        }
+
+        Optional<User> loaded = userRepository.findByEmail(email).map(UserCache::snapshot);
+        loaded.ifPresent(user -> {
+            usersById.put(user.getId(), user);
+            idsByEmail.put(email, user.getId());
+        });
+        return loaded;
+    }
+
+
+    public void evictAfterCommit(Long userId) {
+        TransactionCallbacks.afterCommit(() -> evict(userId));
+    }
+
+
+    public void evictAllAfterCommit() {
+        TransactionCallbacks.afterCommit(() -> {
+            usersById.invalidateAll();
+            idsByEmail.invalidateAll();
+        });
+    }
+
+
+    // the columns and the (eagerly fetched) roles, frozen; nothing that needs a session
+    private static User snapshot(User user) {
+        return User.builder()
+                .id(user.getId())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .phoneNumber(user.getPhoneNumber())
+                .email(user.getEmail())
+                .password(user.getPassword())
+                .profilePictureUrl(user.getProfilePictureUrl())
+                .active(user.isActive())
+                .securityVersion(user.getSecurityVersion())
+                .roles(user.getRoles() == null ? List.of() : List.copyOf(user.getRoles()))
+                .accounts(UnloadedAccounts.INSTANCE)
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .build();
+    }
+
+
+    /**
+     * Stands in for {@code User.accounts} on a cached snapshot. Reading it throws; toString,
+     * equals and hashCode stay usable so logging or comparing a user does not.
+     */
+    private static final class UnloadedAccounts extends AbstractList<Account> {
+
+        private static final UnloadedAccounts INSTANCE = new UnloadedAccounts();
+
+        @Override
+        public Account get(int index) {
+            throw notLoaded();
+        }
+
+        @Override
+        public int size() {
+            throw notLoaded();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+
+        @Override
+        public String toString() {
+            return "[not loaded]";
+        }
+
+        private static IllegalStateException notLoaded() {
+            return new IllegalStateException("User.accounts is not loaded on a cached user; query AccountRepo instead");
+        }
+    }
+
+
+    private void evict(Long userId) {
+        User cached = usersById.getIfPresent(userId);
+        if (cached != null) {
+            idsByEmail.invalidate(cached.getEmail());
+        }
+        usersById.invalidate(userId);
+    }
+}
@@ -11,6 +11,7 @@ import com.example.demo.auth_users.entity.User;
 import com.example.demo.auth_users.repo.PasswordResetCodeRepo;
 import com.example.demo.auth_users.repo.UserRepo;
 import com.example.demo.auth_users.services.AuthService;
+import com.example.demo.auth_users.services.UserCache;
 import com.example.demo.auth_users.services.PasswordResetCodeGenerator;
 import com.example.demo.enums.AccountType;
 import com.example.demo.enums.Currency;
@@ -20,13 +21,15 @@ import com.example.demo.notification.dtos.NotificationDTO;
 import com.example.demo.notification.services.NotificationService;
 import com.example.demo.res.Response;
 import com.example.demo.role.entity.Role;
-import com.example.demo.role.repo.RoleRepository;
+import com.example.demo.role.service.RoleCache;
+import com.example.demo.exceptions.ServiceUnavailableException;
+import com.example.demo.security.PasswordHasher;
 import com.example.demo.security.TokenService;
+import com.example.demo.security.UserSecurityStateCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -44,9 +47,11 @@ import java.util.stream.Collectors;
 public class AuthServiceImpl implements AuthService {
 
     private final UserRepo userRepository;
-    private final RoleRepository roleRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final RoleCache roleCache;
+    private final UserCache userCache;
+    private final PasswordHasher passwordHasher;
     private final TokenService tokenService;
+    private final UserSecurityStateCache userSecurityStateCache;
     private final PasswordResetCodeGenerator codeGenerator;
     private final PasswordResetCodeRepo passwordResetCodeRepo;
     private final NotificationService notificationService;
@@ -63,17 +68,17 @@ public class AuthServiceImpl implements AuthService {
         List<Role> roles;
         if (request.getRoles() == null || request.getRoles().isEmpty()) {
             // Default role = CUSTOMER
-            Role defaultRole = roleRepository.findByName("CUSTOMER")
+            Role defaultRole = roleCache.findByName("CUSTOMER")
                     .orElseThrow(() -> new RuntimeException("CUSTOMER ROLE not found"));
             roles = Collections.singletonList(defaultRole);
         } else {
             roles = request.getRoles().stream()
-                    .map(roleName -> roleRepository.findByName(roleName)
+                    .map(roleName -> roleCache.findByName(roleName)
                             .orElseThrow(() -> new RuntimeException("Role not found: " + roleName)))
                     .collect(Collectors.toList());
         }
 
-        if (userRepository.findByEmail(request.getEmail()).isPresent()) {
+        if (userCache.findByEmail(request.getEmail()).isPresent()) {
             return Response.<String>builder()
                     .statusCode(400)
                     .message("Email already exists")
@@ -86,7 +91,7 @@ public class AuthServiceImpl implements AuthService {
                 .lastName(request.getLastName())
                 .email(request.getEmail())
                 .phoneNumber(request.getPhoneNumber())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHasher.encode(request.getPassword()))
                 .roles(roles)
                 .active(true)
                 .build();
@@ -138,14 +143,18 @@ public class AuthServiceImpl implements AuthService {
         String email = loginRequest.getEmail();
         String password = loginRequest.getPassword();
 
-        User user = userRepository.findByEmail(email).
+        User user = userCache.findByEmail(email).
                 orElseThrow(() -> new NotFoundException("Email Not Found"));
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordHasher.matches(password, user.getPassword())) {
             throw new BadRequestException("Password doesn't match");
         }
 
-        String token = tokenService.generateToken(user.getEmail());
+        if (passwordHasher.upgradeEncoding(user.getPassword())) {
+            upgradePasswordHash(user, password);
+        }
+
+        String token = tokenService.generateToken(user);
 
         LoginResponse loginResponse = LoginResponse.builder()
                 .roles(user.getRoles().stream().map(Role::getName).toList())
@@ -165,7 +174,7 @@ public class AuthServiceImpl implements AuthService {
     public Response<?> forgetPassword(String email) {
 
         // Find user by email
-        User user = userRepository.findByEmail(email)
+        User user = userCache.findByEmail(email)
                 .orElseThrow(() -> new NotFoundException("User with this email not found"));
 
         // Delete any existing codes for this user
@@ -223,8 +232,11 @@ public class AuthServiceImpl implements AuthService {
 
         // Update user password
         User user = resetCode.getUser();
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHasher.encode(newPassword));
+        user.setSecurityVersion(user.getSecurityVersion() + 1);
         userRepository.save(user);
+        userCache.evictAfterCommit(user.getId());
+        userSecurityStateCache.evictAfterCommit(user.getId());
 
         // Delete the code immediately after successful use
         passwordResetCodeRepo.delete(resetCode);
@@ -249,6 +261,19 @@ public class AuthServiceImpl implements AuthService {
     }
 
 
+    // the password is unchanged, so issued tokens stay valid; a busy pool just defers the upgrade
+    private void upgradePasswordHash(User user, String rawPassword) {
+        try {
+            String newHash = passwordHasher.encode(rawPassword);
+            if (userRepository.upgradePasswordHash(user.getId(), user.getPassword(), newHash) > 0) {
+                userCache.evictAfterCommit(user.getId());
+            }
+        } catch (ServiceUnavailableException e) {
+            log.info("Password hash upgrade for user {} deferred: {}", user.getId(), e.getMessage());
+        }
+    }
+
+
     private LocalDateTime calculateExpiryDate() {
         return LocalDateTime.now().plusHours(5); // 5 hours expiry
     }
@@ -4,6 +4,7 @@ import com.example.demo.auth_users.dtos.UpdatePasswordRequest;
 import com.example.demo.auth_users.dtos.UserDTO;
 import com.example.demo.auth_users.entity.User;
 import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.auth_users.services.UserCache;
 import com.example.demo.auth_users.services.UserService;
 import com.example.demo.aws.S3Service;
 import com.example.demo.exceptions.BadRequestException;
@@ -11,14 +12,14 @@ import com.example.demo.exceptions.NotFoundException;
 import com.example.demo.notification.dtos.NotificationDTO;
 import com.example.demo.notification.services.NotificationService;
 import com.example.demo.res.Response;
+import com.example.demo.security.CurrentUser;
+import com.example.demo.security.PasswordHasher;
+import com.example.demo.security.UserSecurityStateCache;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -37,9 +38,12 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepo userRepository;
     private final NotificationService notificationService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final ModelMapper modelMapper;
     private final S3Service s3Service;
+    private final UserSecurityStateCache userSecurityStateCache;
+    private final UserCache userCache;
+    private final CurrentUser currentUser;
 
 
     // Directory to save profile pictures
@@ -49,20 +53,19 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User getCurrentLoggedInUser() {
+        return currentUser.get();
+    }
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null) {
-            throw new NotFoundException("User is not authenticated");
-        }
-        String email = authentication.getName();
 
-        return userRepository.findByEmail(email)
+    // the cached user is shared and detached; changes and lazy associations need a managed copy
+    private User loadCurrentUserForUpdate() {
+        return userRepository.findById(currentUser.getId())
                 .orElseThrow(() -> new NotFoundException("User Not Found"));
     }
 
     @Override
     public Response<UserDTO> getMyProfile() {
-        User user = getCurrentLoggedInUser();
+        User user = loadCurrentUserForUpdate();
         UserDTO userDTO = modelMapper.map(user, UserDTO.class);
 
         return Response.<UserDTO>builder()
@@ -92,15 +95,21 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Response<UserDTO> updateUser(UserDTO userDto) {
-        User currentUser = getCurrentLoggedInUser();
+        User currentUser = loadCurrentUserForUpdate();
 
         // Update only non-null fields
         if (userDto.getFirstName() != null) currentUser.setFirstName(userDto.getFirstName());
         if (userDto.getLastName() != null) currentUser.setLastName(userDto.getLastName());
         if (userDto.getPhoneNumber() != null) currentUser.setPhoneNumber(userDto.getPhoneNumber());
-        if (userDto.getRoles() != null) currentUser.setRoles(userDto.getRoles());
+        if (userDto.getRoles() != null) {
+            currentUser.setRoles(userDto.getRoles());
+            // tokens carry the role names, so the old ones must stop working
+            currentUser.setSecurityVersion(currentUser.getSecurityVersion() + 1);
+        }
 
         userRepository.save(currentUser);
+        userCache.evictAfterCommit(currentUser.getId());
+        userSecurityStateCache.evictAfterCommit(currentUser.getId());
 
 
         return Response.<UserDTO>builder()
@@ -112,7 +121,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Response<?> updatePassword(UpdatePasswordRequest updatePasswordRequest) {
-        User user = getCurrentLoggedInUser();
+        User user = loadCurrentUserForUpdate();
 
         String newPassword = updatePasswordRequest.getNewPassword();
 
@@ -127,7 +136,7 @@ public class UserServiceImpl implements UserService {
             }
 
             // Validate the old password.
-            if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+            if (!passwordHasher.matches(oldPassword, user.getPassword())) {
                 throw new BadRequestException("Old Password not Correct");
             }
 
@@ -140,9 +149,12 @@ public class UserServiceImpl implements UserService {
         }
 
         // Set the new password regardless of whether the old one was checked.
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHasher.encode(newPassword));
+        user.setSecurityVersion(user.getSecurityVersion() + 1);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        userCache.evictAfterCommit(user.getId());
+        userSecurityStateCache.evictAfterCommit(user.getId());
 
         // Send password change confirmation email.
         Map<String, Object> templateVariables = new HashMap<>();
@@ -203,7 +215,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public Response<?> uploadProfilePicture(MultipartFile file) {
 
-        User user = getCurrentLoggedInUser();
+        User user = loadCurrentUserForUpdate();
 
         try {
             // Create upload directory if it doesn't exist
@@ -238,6 +250,7 @@ public class UserServiceImpl implements UserService {
 
             user.setProfilePictureUrl(fileUrl);
             userRepository.save(user);
+            userCache.evictAfterCommit(user.getId());
 
             return Response.builder()
                     .statusCode(HttpStatus.OK.value())
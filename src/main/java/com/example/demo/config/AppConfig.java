@@ -1,22 +1,36 @@
 package com.example.demo.config;
 
 import org.modelmapper.convention.MatchingStrategies;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.thymeleaf.cache.StandardCacheManager;
 import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 
 @Configuration
 public class AppConfig {
 
     @Bean
-    public SpringTemplateEngine templateEngine() {
+    public SpringTemplateEngine templateEngine(@Value("${templates.cache.ttl-ms}") long cacheTtlMs,
+                                               @Value("${templates.cache.max-templates}") int maxTemplates,
+                                               @Value("${templates.cache.max-expressions}") int maxExpressions) {
         SpringTemplateEngine templateEngine = new SpringTemplateEngine();
         ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
         templateResolver.setPrefix("templates/"); // ✅ Corrects the path
         templateResolver.setSuffix(".html"); // ✅ Adds the file extension
         templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        // parsed templates are kept; a TTL lets edited templates be picked up without a restart
+        templateResolver.setCacheable(true);
+        templateResolver.setCacheTTLMs(cacheTtlMs > 0 ? cacheTtlMs : null);
         templateEngine.setTemplateResolver(templateResolver);
+
+        StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setTemplateCacheMaxSize(maxTemplates);
+        cacheManager.setExpressionCacheMaxSize(maxExpressions);
+        templateEngine.setCacheManager(cacheManager);
         return templateEngine;
     }
 
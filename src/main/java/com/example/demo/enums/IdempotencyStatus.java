@@ -0,0 +1,5 @@
+package com.example.demo.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS, COMPLETED
+}
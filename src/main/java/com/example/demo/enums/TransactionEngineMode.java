@@ -0,0 +1,7 @@
+package com.example.demo.enums;
+
+public enum TransactionEngineMode {
+    JPA,
+    SHARDED,
+    GROUP_COMMIT
+}
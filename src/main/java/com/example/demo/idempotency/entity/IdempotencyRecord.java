@@ -0,0 +1,58 @@
+package com.example.demo.idempotency.entity;
+
+import com.example.demo.enums.IdempotencyStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Remembers the outcome of a request sent with an Idempotency-Key header,
+ * so a retried request is answered from here instead of being executed again.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expiresAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 of the caller's email and the client key
+    @Column(nullable = false, unique = true, length = 64)
+    private String idempotencyKey;
+
+    // fingerprint of the request body; a reused key with a different body is rejected
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private IdempotencyStatus status;
+
+    // the request currently executing the key; once its lease runs out another request may take
+    // the key over, and the old owner can no longer complete it
+    @Column(length = 36)
+    private String ownerToken;
+
+    private LocalDateTime leaseExpiresAt;
+
+    private Integer responseStatusCode;
+
+    private String responseMessage;
+
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+}
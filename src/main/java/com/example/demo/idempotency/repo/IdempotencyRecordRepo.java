@@ -0,0 +1,69 @@
+package com.example.demo.idempotency.repo;
+
+import com.example.demo.idempotency.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepo extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByIdempotencyKey(String idempotencyKey);
+
+    // INSERT IGNORE returns 0 instead of failing the session when the key already exists
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO idempotency_keys (idempotency_key, request_hash, status, owner_token, " +
+            "lease_expires_at, created_at, expires_at) " +
+            "VALUES (:idempotencyKey, :requestHash, :status, :ownerToken, :leaseExpiresAt, :createdAt, :expiresAt)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("idempotencyKey") String idempotencyKey,
+                       @Param("requestHash") String requestHash,
+                       @Param("status") String status,
+                       @Param("ownerToken") String ownerToken,
+                       @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt,
+                       @Param("createdAt") LocalDateTime createdAt,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    // an IN_PROGRESS key whose owner stopped renewing its lease (crashed mid-request) changes hands
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.ownerToken = :ownerToken, r.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE r.id = :id AND r.status = com.example.demo.enums.IdempotencyStatus.IN_PROGRESS " +
+            "AND r.leaseExpiresAt < :now")
+    int takeOver(@Param("id") Long id,
+                 @Param("ownerToken") String ownerToken,
+                 @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt,
+                 @Param("now") LocalDateTime now);
+
+    // joins the transaction of the movement, so the key is COMPLETED exactly when the movement commits.
+    // 0 rows means the claim was taken over and the movement has to roll back
+    @Modifying
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.example.demo.enums.IdempotencyStatus.COMPLETED, " +
+            "r.responseStatusCode = :statusCode, r.responseMessage = :message, r.leaseExpiresAt = null " +
+            "WHERE r.id = :id AND r.ownerToken = :ownerToken " +
+            "AND r.status = com.example.demo.enums.IdempotencyStatus.IN_PROGRESS")
+    int markCompleted(@Param("id") Long id,
+                      @Param("ownerToken") String ownerToken,
+                      @Param("statusCode") Integer statusCode,
+                      @Param("message") String message);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.ownerToken = :ownerToken " +
+            "AND r.status = com.example.demo.enums.IdempotencyStatus.IN_PROGRESS")
+    int release(@Param("id") Long id, @Param("ownerToken") String ownerToken);
+
+    // bounded delete so a purge never holds locks on a large part of the table
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_keys WHERE expires_at < :now LIMIT :batchSize", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+
+}
@@ -0,0 +1,22 @@
+package com.example.demo.idempotency.services;
+
+import com.example.demo.res.Response;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public interface IdempotencyService {
+
+    /**
+     * Runs the action once per key. Repeats of a finished key get the stored response back,
+     * repeats of a key that is still running wait for the first request to finish.
+     * <p>
+     * The action is handed the callback that marks the key COMPLETED and must call it with its
+     * response inside the DB transaction that applies it, so the key and the effect commit or
+     * roll back together.
+     */
+    Response<?> execute(String idempotencyKey, Object request, Function<Consumer<Response<?>>, Response<?>> action);
+
+    void purgeExpiredKeys();
+
+}
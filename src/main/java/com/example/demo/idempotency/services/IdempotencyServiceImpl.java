@@ -0,0 +1,293 @@
+package com.example.demo.idempotency.services;
+
+import com.example.demo.enums.IdempotencyStatus;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.exceptions.ConflictException;
+import com.example.demo.exceptions.NotFoundException;
+import com.example.demo.idempotency.entity.IdempotencyRecord;
+import com.example.demo.idempotency.repo.IdempotencyRecordRepo;
+import com.example.demo.res.Response;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keys live in the idempotency_keys table (the unique column is what makes a key
+ * single-use across instances) with a small LRU of recently finished keys in front of it.
+ * Only the status code and message of a response are kept, which is all a money movement returns.
+ * <p>
+ * The key is marked COMPLETED inside the transaction of the movement itself. A claim left
+ * IN_PROGRESS by a request that died before committing is taken over once its lease runs out;
+ * since that request's movement rolled back, running it again is safe.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long REMOTE_POLL_INTERVAL_MS = 100;
+
+    private final IdempotencyRecordRepo idempotencyRecordRepo;
+
+    // stable field and key order, so equal requests always fingerprint the same
+    private final ObjectMapper canonicalMapper = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .findAndAddModules()
+            .build();
+
+    // requests currently executing on this instance; duplicates wait on the first one's future
+    private final Map<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    private Map<String, IdempotencyRecord> recentlyCompleted;
+
+    @Value("${idempotency.ttl-hours}")
+    private long ttlHours;
+
+    @Value("${idempotency.cache-size}")
+    private int cacheSize;
+
+    @Value("${idempotency.wait-timeout-ms}")
+    private long waitTimeoutMs;
+
+    // longer than any request can run; a claim older than this belongs to a dead request
+    @Value("${idempotency.lease-ms}")
+    private long leaseMs;
+
+    @Value("${idempotency.purge-batch-size}")
+    private int purgeBatchSize;
+
+    @PostConstruct
+    private void init() {
+        recentlyCompleted = Collections.synchronizedMap(new LinkedHashMap<String, IdempotencyRecord>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+
+    @Override
+    public Response<?> execute(String idempotencyKey, Object request, Function<Consumer<Response<?>>, Response<?>> action) {
+        if (!StringUtils.hasText(idempotencyKey) || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String key = sha256(currentUsername() + ":" + idempotencyKey);
+        String requestHash = sha256(canonicalJson(request));
+
+        IdempotencyRecord cached = recentlyCompleted.get(key);
+        if (cached != null && cached.getExpiresAt().isAfter(LocalDateTime.now())) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<IdempotencyRecord> own = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            return replay(await(running), requestHash);
+        }
+
+        try {
+            IdempotencyRecord record = claimAndRun(key, requestHash, action);
+            own.complete(record);
+            return replay(record, requestHash);
+        } catch (RuntimeException ex) {
+            own.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+
+    @Override
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms}")
+    public void purgeExpiredKeys() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = idempotencyRecordRepo.deleteExpiredBatch(now, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (total > 0) {
+            log.info("Purged {} expired idempotency keys", total);
+        }
+    }
+
+
+    private IdempotencyRecord claimAndRun(String key, String requestHash, Function<Consumer<Response<?>>, Response<?>> action) {
+        String ownerToken = UUID.randomUUID().toString();
+        IdempotencyRecord record = claim(key, requestHash, ownerToken);
+        if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+            return record;
+        }
+
+        Response<?> response;
+        try {
+            response = action.apply(completed -> {
+                if (idempotencyRecordRepo.markCompleted(record.getId(), ownerToken,
+                        completed.getStatusCode(), completed.getMessage()) == 0) {
+                    throw new ConflictException("A request with this Idempotency-Key is still being processed");
+                }
+            });
+        } catch (RuntimeException ex) {
+            // the action rolled back, so release the key (if still ours) and let the client retry it
+            idempotencyRecordRepo.release(record.getId(), ownerToken);
+            throw ex;
+        }
+
+        record.setStatus(IdempotencyStatus.COMPLETED);
+        record.setResponseStatusCode(response.getStatusCode());
+        record.setResponseMessage(response.getMessage());
+        record.setLeaseExpiresAt(null);
+        recentlyCompleted.put(key, record);
+        return record;
+    }
+
+
+    /**
+     * Returns our own IN_PROGRESS claim, or the COMPLETED record of an earlier request.
+     * Waits while another request holds the key, and takes the key over once that request's
+     * lease has run out.
+     */
+    private IdempotencyRecord claim(String key, String requestHash, String ownerToken) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            Optional<IdempotencyRecord> existing = idempotencyRecordRepo.findByIdempotencyKey(key);
+
+            if (existing.isEmpty()) {
+                if (idempotencyRecordRepo.insertIfAbsent(key, requestHash, IdempotencyStatus.IN_PROGRESS.name(),
+                        ownerToken, now.plus(leaseMs, ChronoUnit.MILLIS), now, now.plusHours(ttlHours)) == 1) {
+                    return idempotencyRecordRepo.findByIdempotencyKey(key)
+                            .orElseThrow(() -> new NotFoundException("Idempotency key not found"));
+                }
+                // another instance inserted the key between our read and insert
+            } else if (existing.get().getExpiresAt().isBefore(now)) {
+                idempotencyRecordRepo.delete(existing.get());
+                continue;
+            } else if (existing.get().getStatus() == IdempotencyStatus.COMPLETED) {
+                recentlyCompleted.put(key, existing.get());
+                return existing.get();
+            } else if (!existing.get().getRequestHash().equals(requestHash)) {
+                throw new BadRequestException("Idempotency-Key was already used for a different request");
+            } else if (existing.get().getLeaseExpiresAt() != null && existing.get().getLeaseExpiresAt().isBefore(now)) {
+                IdempotencyRecord abandoned = existing.get();
+                LocalDateTime leaseExpiresAt = now.plus(leaseMs, ChronoUnit.MILLIS);
+                if (idempotencyRecordRepo.takeOver(abandoned.getId(), ownerToken, leaseExpiresAt, now) == 1) {
+                    log.warn("Taking over idempotency key {} abandoned by an earlier request", key);
+                    abandoned.setOwnerToken(ownerToken);
+                    abandoned.setLeaseExpiresAt(leaseExpiresAt);
+                    return abandoned;
+                }
+                continue;
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                throw new ConflictException("A request with this Idempotency-Key is still being processed");
+            }
+            sleep(REMOTE_POLL_INTERVAL_MS);
+        }
+    }
+
+
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> running) {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConflictException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for the original request");
+        }
+    }
+
+
+    private Response<?> replay(IdempotencyRecord record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new BadRequestException("Idempotency-Key was already used for a different request");
+        }
+        return Response.builder()
+                .statusCode(record.getResponseStatusCode())
+                .message(record.getResponseMessage())
+                .build();
+    }
+
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new NotFoundException("User is not authenticated");
+        }
+        return authentication.getName();
+    }
+
+
+    private String canonicalJson(Object request) {
+        try {
+            return canonicalMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Request cannot be fingerprinted for idempotency");
+        }
+    }
+
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for the original request");
+        }
+    }
+}
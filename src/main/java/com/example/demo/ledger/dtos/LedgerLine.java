@@ -0,0 +1,23 @@
+package com.example.demo.ledger.dtos;
+
+import com.example.demo.enums.LedgerEntryType;
+import com.example.demo.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a ledger entry that history reads need, selected directly instead of as
+ * a managed entity. The account and transaction ids come from the FK columns, so no join.
+ */
+public record LedgerLine(Long id,
+                         Long accountId,
+                         Long transactionId,
+                         LedgerEntryType entryType,
+                         TransactionType transactionType,
+                         BigDecimal amount,
+                         BigDecimal balanceAfter,
+                         String counterpartyAccount,
+                         String description,
+                         LocalDateTime postedAt) {
+}
@@ -0,0 +1,24 @@
+package com.example.demo.ledger.dtos;
+
+import com.example.demo.transaction.dtos.TransactionDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of an account's history. nextCursor is null on the last page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerPage {
+
+    private List<TransactionDTO> items;
+
+    private String nextCursor;
+
+}
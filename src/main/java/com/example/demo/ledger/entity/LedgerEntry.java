@@ -0,0 +1,68 @@
+package com.example.demo.ledger.entity;
+
+import com.example.demo.account.entity.Account;
+import com.example.demo.enums.LedgerEntryType;
+import com.example.demo.enums.TransactionType;
+import com.example.demo.transaction.entity.Transaction;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One side of a money movement as seen by a single account. A deposit or withdrawal posts
+ * one entry, a transfer posts a DEBIT on the source and a CREDIT on the destination, so an
+ * account's history (incoming transfers included) is a range scan on (account_id, posted_at).
+ */
+@Entity
+@Table(name = "ledger_entries", indexes = {
+        @Index(name = "idx_ledger_entries_account_posted", columnList = "account_id, postedAt, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_seq")
+    @SequenceGenerator(name = "ledger_entries_seq", sequenceName = "ledger_entries_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    @ToString.Exclude
+    private Account account;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id", nullable = false)
+    @ToString.Exclude
+    private Transaction transaction;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private LedgerEntryType entryType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TransactionType transactionType;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    // balance of this account right after the entry was posted
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balanceAfter;
+
+    // the other account of a transfer
+    @Column(length = 20)
+    private String counterpartyAccount;
+
+    @Column(length = 255)
+    private String description;
+
+    @Column(nullable = false)
+    private LocalDateTime postedAt;
+
+}
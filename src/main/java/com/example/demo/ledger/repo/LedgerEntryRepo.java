@@ -0,0 +1,58 @@
+package com.example.demo.ledger.repo;
+
+import com.example.demo.ledger.dtos.LedgerLine;
+import com.example.demo.ledger.entity.LedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * History reads select {@link LedgerLine} projections, never entities. Offset pages first
+ * find their ids on (account_id, posted_at, id) alone, so the skipped rows are walked in the
+ * index and only the rows of the page are fetched.
+ */
+public interface LedgerEntryRepo extends JpaRepository<LedgerEntry, Long> {
+
+    String LINE = "SELECT new com.example.demo.ledger.dtos.LedgerLine(e.id, e.account.id, e.transaction.id, " +
+            "e.entryType, e.transactionType, e.amount, e.balanceAfter, e.counterpartyAccount, e.description, e.postedAt) " +
+            "FROM LedgerEntry e ";
+
+    // index-only: the offset is skipped inside idx_ledger_entries_account_posted
+    @Query("SELECT e.id FROM LedgerEntry e WHERE e.account.id = :accountId ORDER BY e.postedAt DESC, e.id DESC")
+    List<Long> findPageIds(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query("SELECT COUNT(e) FROM LedgerEntry e WHERE e.account.id = :accountId")
+    long countByAccountId(@Param("accountId") Long accountId);
+
+    @Query(LINE + "WHERE e.id IN :ids ORDER BY e.postedAt DESC, e.id DESC")
+    List<LedgerLine> findLinesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // the whole history of one account, oldest first
+    @Query(LINE + "WHERE e.account.id = :accountId ORDER BY e.postedAt, e.id")
+    List<LedgerLine> findAllByAccountId(@Param("accountId") Long accountId);
+
+    // keyset pages: a List result with a Pageable only limits the rows, it never runs a COUNT
+    @Query(LINE + "WHERE e.account.id = :accountId ORDER BY e.postedAt DESC, e.id DESC")
+    List<LedgerLine> findFirstPage(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query(LINE + "WHERE e.account.id = :accountId " +
+            "AND (e.postedAt < :postedAt OR (e.postedAt = :postedAt AND e.id < :id)) " +
+            "ORDER BY e.postedAt DESC, e.id DESC")
+    List<LedgerLine> findPageAfter(@Param("accountId") Long accountId,
+                                   @Param("postedAt") LocalDateTime postedAt,
+                                   @Param("id") Long id,
+                                   Pageable pageable);
+
+    // every posting of a set of accounts in [from, to), one round trip for a whole statement chunk
+    @Query(LINE + "WHERE e.account.id IN :accountIds " +
+            "AND e.postedAt >= :from AND e.postedAt < :to ORDER BY e.account.id, e.postedAt, e.id")
+    List<LedgerLine> findForAccountsBetween(@Param("accountIds") Collection<Long> accountIds,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+}
@@ -0,0 +1,47 @@
+package com.example.demo.ledger.services;
+
+import com.example.demo.account.entity.Account;
+import com.example.demo.ledger.dtos.LedgerPage;
+import com.example.demo.ledger.entity.LedgerEntry;
+import com.example.demo.transaction.dtos.TransactionDTO;
+import com.example.demo.transaction.entity.Transaction;
+import org.springframework.data.domain.Page;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface LedgerService {
+
+    /**
+     * Builds the postings of a movement. accountBalance is the balance of the transaction's
+     * account right after the movement, so that account may be an unloaded reference;
+     * destination is only given for transfers and carries its own updated balance.
+     */
+    List<LedgerEntry> buildEntries(Transaction transaction, BigDecimal accountBalance, Account destination);
+
+    void post(Transaction transaction, BigDecimal accountBalance, Account destination);
+
+    void postAll(List<LedgerEntry> entries);
+
+    Page<TransactionDTO> getAccountHistory(Long accountId, int page, int size);
+
+    /**
+     * Every posting of the account, oldest first, in one list; large accounts should be paged or exported instead.
+     */
+    List<TransactionDTO> getFullAccountHistory(Long accountId);
+
+    /**
+     * Seeks on (postedAt, id) from an opaque cursor instead of skipping rows; null or blank starts at the newest entry.
+     */
+    LedgerPage getAccountHistoryAfter(Long accountId, String cursor, int size);
+
+    /**
+     * Postings of every given account in [from, to), oldest first, keyed by account id.
+     * Accounts without postings are absent from the map.
+     */
+    Map<Long, List<TransactionDTO>> getPostingsByAccount(Collection<Long> accountIds, LocalDateTime from, LocalDateTime to);
+
+}
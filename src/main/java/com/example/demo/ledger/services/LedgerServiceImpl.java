@@ -0,0 +1,168 @@
+package com.example.demo.ledger.services;
+
+import com.example.demo.account.entity.Account;
+import com.example.demo.enums.LedgerEntryType;
+import com.example.demo.enums.TransactionStatus;
+import com.example.demo.enums.TransactionType;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.ledger.dtos.LedgerLine;
+import com.example.demo.ledger.dtos.LedgerPage;
+import com.example.demo.ledger.entity.LedgerEntry;
+import com.example.demo.ledger.repo.LedgerEntryRepo;
+import com.example.demo.transaction.dtos.TransactionDTO;
+import com.example.demo.transaction.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class LedgerServiceImpl implements LedgerService {
+
+    private final LedgerEntryRepo ledgerEntryRepo;
+
+
+    @Override
+    public List<LedgerEntry> buildEntries(Transaction transaction, BigDecimal accountBalance, Account destination) {
+        Account account = transaction.getAccount();
+        List<LedgerEntry> entries = new ArrayList<>(2);
+
+        switch (transaction.getTransactionType()) {
+            case DEPOSIT -> entries.add(entry(transaction, account, accountBalance, LedgerEntryType.CREDIT, null));
+            case WITHDRAWAL -> entries.add(entry(transaction, account, accountBalance, LedgerEntryType.DEBIT, null));
+            case TRANSFER -> {
+                entries.add(entry(transaction, account, accountBalance, LedgerEntryType.DEBIT,
+                        transaction.getDestinationAccount()));
+                entries.add(entry(transaction, destination, destination.getBalance(), LedgerEntryType.CREDIT,
+                        transaction.getSourceAccount()));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void post(Transaction transaction, BigDecimal accountBalance, Account destination) {
+        ledgerEntryRepo.saveAll(buildEntries(transaction, accountBalance, destination));
+    }
+
+    @Override
+    public void postAll(List<LedgerEntry> entries) {
+        ledgerEntryRepo.saveAll(entries);
+    }
+
+    @Override
+    public Page<TransactionDTO> getAccountHistory(Long accountId, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        List<Long> ids = ledgerEntryRepo.findPageIds(accountId, pageable);
+        List<TransactionDTO> items = ids.isEmpty() ? List.of()
+                : ledgerEntryRepo.findLinesByIdIn(ids).stream().map(this::toDTO).toList();
+        return PageableExecutionUtils.getPage(items, pageable, () -> ledgerEntryRepo.countByAccountId(accountId));
+    }
+
+    @Override
+    public List<TransactionDTO> getFullAccountHistory(Long accountId) {
+        return ledgerEntryRepo.findAllByAccountId(accountId).stream().map(this::toDTO).toList();
+    }
+
+    @Override
+    public LedgerPage getAccountHistoryAfter(Long accountId, String cursor, int size) {
+        // one extra row tells whether another page exists
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<LedgerLine> entries;
+        if (cursor == null || cursor.isBlank()) {
+            entries = ledgerEntryRepo.findFirstPage(accountId, limit);
+        } else {
+            String[] position = decodeCursor(cursor);
+            entries = ledgerEntryRepo.findPageAfter(accountId, LocalDateTime.parse(position[0]), Long.parseLong(position[1]), limit);
+        }
+
+        boolean hasMore = entries.size() > size;
+        List<LedgerLine> pageEntries = hasMore ? entries.subList(0, size) : entries;
+
+        return LedgerPage.builder()
+                .items(pageEntries.stream().map(this::toDTO).toList())
+                .nextCursor(hasMore ? encodeCursor(pageEntries.get(size - 1)) : null)
+                .build();
+    }
+
+    @Override
+    public Map<Long, List<TransactionDTO>> getPostingsByAccount(Collection<Long> accountIds, LocalDateTime from, LocalDateTime to) {
+        Map<Long, List<TransactionDTO>> postings = new HashMap<>();
+        for (LedgerLine line : ledgerEntryRepo.findForAccountsBetween(accountIds, from, to)) {
+            postings.computeIfAbsent(line.accountId(), id -> new ArrayList<>()).add(toDTO(line));
+        }
+        return postings;
+    }
+
+
+    private LedgerEntry entry(Transaction transaction, Account account, BigDecimal balanceAfter,
+                              LedgerEntryType type, String counterparty) {
+        return LedgerEntry.builder()
+                .account(account)
+                .transaction(transaction)
+                .entryType(type)
+                .transactionType(transaction.getTransactionType())
+                .amount(transaction.getAmount())
+                .balanceAfter(balanceAfter)
+                .counterpartyAccount(counterparty)
+                .description(transaction.getDescription())
+                .postedAt(transaction.getTransactionDate())
+                .build();
+    }
+
+
+    private String encodeCursor(LedgerLine last) {
+        String position = last.postedAt() + "|" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+
+    // built from the entry alone, so reading history never joins transactions or accounts
+    private TransactionDTO toDTO(LedgerLine line) {
+        boolean transfer = line.transactionType() == TransactionType.TRANSFER;
+        boolean debit = line.entryType() == LedgerEntryType.DEBIT;
+
+        return TransactionDTO.builder()
+                .id(line.transactionId())
+                .amount(line.amount())
+                .transactionType(line.transactionType())
+                .entryType(line.entryType())
+                .balanceAfter(line.balanceAfter())
+                .transactionDate(line.postedAt())
+                .description(line.description())
+                .status(TransactionStatus.SUCCESS)
+                .sourceAccount(transfer && !debit ? line.counterpartyAccount() : null)
+                .destinationAccount(transfer && debit ? line.counterpartyAccount() : null)
+                .build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.notification.channel;
+
+import com.example.demo.enums.NotificationType;
+import com.example.demo.notification.dtos.OutgoingNotification;
+import com.example.demo.notification.services.EmailSender;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// a batch goes out over one pooled SMTP connection
+@Component
+@RequiredArgsConstructor
+public class EmailChannel implements NotificationChannel {
+
+    private final EmailSender emailSender;
+
+    @Override
+    public NotificationType type() {
+        return NotificationType.EMAIL;
+    }
+
+    @Override
+    public List<RuntimeException> send(List<OutgoingNotification> batch) {
+        return new ArrayList<>(emailSender.sendAll(batch));
+    }
+}
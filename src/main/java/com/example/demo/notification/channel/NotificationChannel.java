@@ -0,0 +1,22 @@
+package com.example.demo.notification.channel;
+
+import com.example.demo.enums.NotificationType;
+import com.example.demo.notification.dtos.OutgoingNotification;
+
+import java.util.List;
+
+/**
+ * A delivery channel. Implementations are Spring beans picked up by the NotificationRouter,
+ * which gives every channel its own worker pool, rate limit and batch size.
+ */
+public interface NotificationChannel {
+
+    NotificationType type();
+
+    /**
+     * Delivers the batch on the calling thread. The result has one entry per notification:
+     * null when it was delivered, otherwise the failure.
+     */
+    List<RuntimeException> send(List<OutgoingNotification> batch);
+
+}
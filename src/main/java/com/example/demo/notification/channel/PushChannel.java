@@ -0,0 +1,44 @@
+package com.example.demo.notification.channel;
+
+import com.example.demo.enums.NotificationType;
+import com.example.demo.notification.dtos.OutgoingNotification;
+import com.example.demo.notification.entity.Notification;
+import com.example.demo.notification.services.NotificationLogWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Local push channel: recording the notification puts it in the in-app feed, which pushes
+ * it to the user's open SSE streams once the log writer flushed it. A mobile push
+ * provider would plug in here.
+ */
+@Component
+@RequiredArgsConstructor
+public class PushChannel implements NotificationChannel {
+
+    private final NotificationLogWriter notificationLogWriter;
+
+    @Override
+    public NotificationType type() {
+        return NotificationType.PUSH;
+    }
+
+    @Override
+    public List<RuntimeException> send(List<OutgoingNotification> batch) {
+        List<Notification> pushed = new ArrayList<>(batch.size());
+        for (OutgoingNotification outgoing : batch) {
+            pushed.add(Notification.builder()
+                    .recipient(outgoing.notification().getRecipient())
+                    .subject(outgoing.notification().getSubject())
+                    .type(NotificationType.PUSH)
+                    .user(outgoing.user())
+                    .build());
+        }
+        notificationLogWriter.append(pushed);
+        return new ArrayList<>(Collections.nCopies(batch.size(), null));
+    }
+}
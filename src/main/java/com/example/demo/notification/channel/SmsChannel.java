@@ -0,0 +1,62 @@
+package com.example.demo.notification.channel;
+
+import com.example.demo.enums.NotificationType;
+import com.example.demo.notification.dtos.OutgoingNotification;
+import com.example.demo.notification.entity.Notification;
+import com.example.demo.notification.services.NotificationLogWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for an SMS provider: logs the message, optionally waits for a simulated
+ * provider round trip per batch, and records it like any other notification.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SmsChannel implements NotificationChannel {
+
+    private final NotificationLogWriter notificationLogWriter;
+
+    @Value("${notification.channel.sms.simulated-latency-ms}")
+    private long simulatedLatencyMs;
+
+    @Override
+    public NotificationType type() {
+        return NotificationType.SMS;
+    }
+
+    @Override
+    public List<RuntimeException> send(List<OutgoingNotification> batch) {
+        if (simulatedLatencyMs > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(simulatedLatencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                IllegalStateException failure = new IllegalStateException("Interrupted while sending SMS", e);
+                return new ArrayList<>(Collections.nCopies(batch.size(), failure));
+            }
+        }
+
+        List<Notification> sent = new ArrayList<>(batch.size());
+        for (OutgoingNotification outgoing : batch) {
+            log.info("SMS to user {}: {}", outgoing.user() == null ? null : outgoing.user().getId(),
+                    outgoing.notification().getSubject());
+            sent.add(Notification.builder()
+                    .recipient(outgoing.notification().getRecipient())
+                    .subject(outgoing.notification().getSubject())
+                    .type(NotificationType.SMS)
+                    .user(outgoing.user())
+                    .build());
+        }
+        notificationLogWriter.append(sent);
+        return new ArrayList<>(Collections.nCopies(batch.size(), null));
+    }
+}
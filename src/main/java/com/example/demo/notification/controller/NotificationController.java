@@ -0,0 +1,70 @@
+package com.example.demo.notification.controller;
+
+import com.example.demo.notification.dtos.NotificationDTO;
+import com.example.demo.notification.dtos.NotificationPreferenceDTO;
+import com.example.demo.notification.services.NotificationFeedService;
+import com.example.demo.notification.services.NotificationPreferenceService;
+import com.example.demo.res.Response;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+public class NotificationController {
+
+    private final NotificationPreferenceService preferenceService;
+    private final NotificationFeedService feedService;
+
+    @GetMapping
+    public ResponseEntity<Response<List<NotificationDTO>>> getMyNotifications(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(feedService.getMyNotifications(cursor, size));
+    }
+
+    @GetMapping("/unread-count")
+    public ResponseEntity<Response<Long>> getMyUnreadCount() {
+        return ResponseEntity.ok(feedService.getMyUnreadCount());
+    }
+
+    @PutMapping("/{notificationId}/read")
+    public ResponseEntity<Response<?>> markAsRead(@PathVariable Long notificationId) {
+        return ResponseEntity.ok(feedService.markAsRead(notificationId));
+    }
+
+    @PutMapping("/read-all")
+    public ResponseEntity<Response<?>> markAllAsRead() {
+        return ResponseEntity.ok(feedService.markAllAsRead());
+    }
+
+    // new notifications are pushed as "notification" events, with comment heartbeats in between
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMyNotifications() {
+        return feedService.streamMyNotifications();
+    }
+
+    // rows past the retention period are read back from the monthly archive files
+    @GetMapping("/archive")
+    public ResponseEntity<Response<List<NotificationDTO>>> getMyArchivedNotifications(@RequestParam String month) {
+        return ResponseEntity.ok(feedService.getMyArchivedNotifications(month));
+    }
+
+    @GetMapping("/preferences")
+    public ResponseEntity<Response<NotificationPreferenceDTO>> getMyPreferences() {
+        return ResponseEntity.ok(preferenceService.getMyPreferences());
+    }
+
+    @PutMapping("/preferences")
+    public ResponseEntity<Response<NotificationPreferenceDTO>> updateMyPreferences(
+            @RequestBody @Valid NotificationPreferenceDTO preferenceDTO) {
+        return ResponseEntity.ok(preferenceService.updateMyPreferences(preferenceDTO));
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.notification.dtos;
+
+import com.example.demo.enums.NotificationType;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of a notification archive file.
+ */
+@JsonPropertyOrder({"userId", "id", "subject", "recipient", "body", "type", "createdAt", "readAt"})
+public record ArchivedNotification(
+        Long userId,
+        Long id,
+        String subject,
+        String recipient,
+        String body,
+        NotificationType type,
+        LocalDateTime createdAt,
+        LocalDateTime readAt
+) {
+}
@@ -36,6 +36,8 @@ public class NotificationDTO {
 
     private LocalDateTime createdAt;
 
+    private LocalDateTime readAt;
+
     // For template emails
     private String templateName;
     private Map<String, Object> templateVariables;
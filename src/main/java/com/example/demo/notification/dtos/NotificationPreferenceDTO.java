@@ -0,0 +1,27 @@
+package com.example.demo.notification.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPreferenceDTO {
+
+    // null fields are left unchanged on update
+    private Boolean digestEnabled;
+
+    private Boolean emailEnabled;
+
+    private Boolean smsEnabled;
+
+    private Boolean pushEnabled;
+
+}
@@ -0,0 +1,9 @@
+package com.example.demo.notification.dtos;
+
+import com.example.demo.auth_users.entity.User;
+
+/**
+ * A notification on its way to one channel, with the user it is recorded against.
+ */
+public record OutgoingNotification(NotificationDTO notification, User user) {
+}
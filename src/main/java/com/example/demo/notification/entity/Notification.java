@@ -12,7 +12,11 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_created", columnList = "user_id, createdAt, id"),
+        // the archiver walks the oldest rows first
+        @Index(name = "idx_notifications_created", columnList = "createdAt, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,12 +24,16 @@ import java.time.LocalDateTime;
 public class Notification {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence instead of IDENTITY, so inserts can be JDBC-batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notifications_seq")
+    @SequenceGenerator(name = "notifications_seq", sequenceName = "notifications_seq", allocationSize = 50)
     private Long id;
 
     private String subject;
     private String recipient;
 
+    // statements are mailed as full HTML bodies
+    @Lob
     private String body;
 
     @Enumerated(EnumType.STRING)
@@ -37,4 +45,7 @@ public class Notification {
 
     private final LocalDateTime createdAt = LocalDateTime.now();
 
+    // null while unread
+    private LocalDateTime readAt;
+
 }
@@ -0,0 +1,36 @@
+package com.example.demo.notification.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The lease that lets one instance at a time run the archiver. The holder renews it before
+ * every batch; once it runs out (the instance died) the next scheduled run on any instance
+ * takes it.
+ */
+@Entity
+@Table(name = "notification_archive_leases")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationArchiveLease {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(length = 36)
+    private String ownerToken;
+
+    private LocalDateTime leaseExpiresAt;
+
+}
@@ -0,0 +1,54 @@
+package com.example.demo.notification.entity;
+
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.enums.NotificationType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification the dispatcher gave up on after its last retry, kept for inspection or a manual resend.
+ */
+@Entity
+@Table(name = "notification_dead_letters")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private NotificationType channel;
+
+    private String recipient;
+
+    private String subject;
+
+    private String templateName;
+
+    @Lob
+    private String templateVariables;
+
+    @Lob
+    @ToString.Exclude
+    private String body;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    @ToString.Exclude
+    private User user;
+
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    private LocalDateTime failedAt;
+
+}
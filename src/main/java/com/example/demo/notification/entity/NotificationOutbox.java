@@ -0,0 +1,82 @@
+package com.example.demo.notification.entity;
+
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification written in the same DB transaction as the change it reports on, and
+ * delivered later by the outbox relay. availableAt is both the retry time and the lease
+ * of a claimed row: a relay that dies mid-send lets the row become claimable again.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        @Index(name = "idx_notification_outbox_status_available", columnList = "status, availableAt"),
+        @Index(name = "idx_notification_outbox_digest", columnList = "digestKey, status")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_outbox_seq")
+    @SequenceGenerator(name = "notification_outbox_seq", sequenceName = "notification_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    // rows written before channels existed are emails
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private NotificationType channel;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String subject;
+
+    private String templateName;
+
+    // template variables as a JSON object of strings
+    @Lob
+    private String templateVariables;
+
+    // set instead of a template for pre-rendered mails
+    @Lob
+    @ToString.Exclude
+    private String body;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    @ToString.Exclude
+    private User user;
+
+    // user id + template when the alert is held for a digest, null otherwise
+    @Column(length = 100)
+    private String digestKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime availableAt;
+
+    // set by each claim; the writes after delivery only apply while it still matches
+    @Column(length = 36)
+    private String claimToken;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+}
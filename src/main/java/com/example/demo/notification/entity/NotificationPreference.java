@@ -0,0 +1,42 @@
+package com.example.demo.notification.entity;
+
+import com.example.demo.auth_users.entity.User;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "notification_preferences")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPreference {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, unique = true)
+    @ToString.Exclude
+    private User user;
+
+    // alerts arriving within the digest window are mailed as one summary
+    private boolean digestEnabled;
+
+    @Builder.Default
+    @ColumnDefault("true")
+    private boolean emailEnabled = true;
+
+    @ColumnDefault("false")
+    private boolean smsEnabled;
+
+    @ColumnDefault("false")
+    private boolean pushEnabled;
+
+    private LocalDateTime updatedAt;
+
+}
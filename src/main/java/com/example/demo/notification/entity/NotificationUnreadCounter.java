@@ -0,0 +1,28 @@
+package com.example.demo.notification.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Unread notifications per user, adjusted as notifications are recorded and read,
+ * so the badge count never needs a COUNT(*) over the feed.
+ */
+@Entity
+@Table(name = "notification_unread_counters")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationUnreadCounter {
+
+    @Id
+    private Long userId;
+
+    private long unreadCount;
+
+}
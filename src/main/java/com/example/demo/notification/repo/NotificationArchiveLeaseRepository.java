@@ -0,0 +1,45 @@
+package com.example.demo.notification.repo;
+
+import com.example.demo.notification.entity.NotificationArchiveLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface NotificationArchiveLeaseRepository extends JpaRepository<NotificationArchiveLease, String> {
+
+    // INSERT IGNORE returns 0 when the row is already there
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO notification_archive_leases (name) VALUES (:name)", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+
+    // a lease nobody holds, or whose holder stopped renewing it, changes hands
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationArchiveLease l SET l.ownerToken = :ownerToken, l.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE l.name = :name AND (l.leaseExpiresAt IS NULL OR l.leaseExpiresAt < :now)")
+    int acquire(@Param("name") String name,
+                @Param("ownerToken") String ownerToken,
+                @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt,
+                @Param("now") LocalDateTime now);
+
+    // 0 rows means another instance took the lease over
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationArchiveLease l SET l.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE l.name = :name AND l.ownerToken = :ownerToken")
+    int renew(@Param("name") String name,
+              @Param("ownerToken") String ownerToken,
+              @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationArchiveLease l SET l.ownerToken = null, l.leaseExpiresAt = null " +
+            "WHERE l.name = :name AND l.ownerToken = :ownerToken")
+    int release(@Param("name") String name, @Param("ownerToken") String ownerToken);
+
+}
@@ -0,0 +1,7 @@
+package com.example.demo.notification.repo;
+
+import com.example.demo.notification.entity.NotificationDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface NotificationDeadLetterRepository extends JpaRepository<NotificationDeadLetter, Long> {
+}
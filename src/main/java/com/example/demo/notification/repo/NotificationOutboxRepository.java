@@ -0,0 +1,67 @@
+package com.example.demo.notification.repo;
+
+import com.example.demo.enums.OutboxStatus;
+import com.example.demo.notification.entity.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // rows locked by another relay are skipped instead of waited for
+    @Query(value = "SELECT * FROM notification_outbox WHERE status = 'PENDING' AND available_at <= :now " +
+            "ORDER BY available_at, id LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationOutbox> claimBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+
+    // the oldest pending alerts of one digest that are due, or still held for their first digest
+    // window (never attempted). Rows leased by another relay or backing off after a failure have
+    // attempts > 0 and a future availableAt, so they are left to whoever owns them
+    @Query(value = "SELECT * FROM notification_outbox WHERE digest_key = :digestKey AND status = 'PENDING' " +
+            "AND (available_at <= :now OR attempts = 0) ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationOutbox> claimDigestRows(@Param("digestKey") String digestKey,
+                                             @Param("now") LocalDateTime now,
+                                             @Param("limit") int limit);
+
+    // the writes after a delivery match the claim token, so a relay whose lease ran out changes
+    // nothing once another relay has claimed the rows again
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.status = com.example.demo.enums.OutboxStatus.SENT, o.sentAt = :now, " +
+            "o.claimToken = null WHERE o.id IN :ids AND o.claimToken = :claimToken")
+    int markSent(@Param("ids") Collection<Long> ids,
+                 @Param("claimToken") String claimToken,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.status = :status, o.availableAt = :availableAt, o.lastError = :lastError, " +
+            "o.claimToken = null WHERE o.id = :id AND o.claimToken = :claimToken")
+    int reschedule(@Param("id") Long id,
+                   @Param("claimToken") String claimToken,
+                   @Param("status") OutboxStatus status,
+                   @Param("availableAt") LocalDateTime availableAt,
+                   @Param("lastError") String lastError);
+
+    // gives back the attempt the claim counted
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.attempts = o.attempts - 1, o.availableAt = :availableAt, " +
+            "o.claimToken = null WHERE o.id IN :ids AND o.claimToken = :claimToken")
+    int postpone(@Param("ids") Collection<Long> ids,
+                 @Param("claimToken") String claimToken,
+                 @Param("availableAt") LocalDateTime availableAt);
+
+    // bounded delete so a purge never holds locks on a large part of the table
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM notification_outbox WHERE status = 'SENT' AND sent_at < :before LIMIT :batchSize",
+            nativeQuery = true)
+    int deleteSentBatch(@Param("before") LocalDateTime before, @Param("batchSize") int batchSize);
+
+}
@@ -0,0 +1,12 @@
+package com.example.demo.notification.repo;
+
+import com.example.demo.notification.entity.NotificationPreference;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface NotificationPreferenceRepository extends JpaRepository<NotificationPreference, Long> {
+
+    Optional<NotificationPreference> findByUser_Id(Long userId);
+
+}
@@ -1,7 +1,51 @@
 package com.example.demo.notification.repo;
 
+import com.example.demo.notification.dtos.ArchivedNotification;
 import com.example.demo.notification.entity.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    // keyset pages over (user_id, createdAt, id); a List result with a Pageable never runs a COUNT
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageAfter(@Param("userId") Long userId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.readAt = :now WHERE n.id = :id AND n.user.id = :userId AND n.readAt IS NULL")
+    int markRead(@Param("id") Long id, @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.readAt = :now WHERE n.user.id = :userId AND n.readAt IS NULL")
+    int markAllRead(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // oldest first over (createdAt, id); the projection avoids loading the user of every row
+    @Query("SELECT new com.example.demo.notification.dtos.ArchivedNotification(" +
+            "u.id, n.id, n.subject, n.recipient, n.body, n.type, n.createdAt, n.readAt) " +
+            "FROM Notification n LEFT JOIN n.user u WHERE n.createdAt < :before ORDER BY n.createdAt, n.id")
+    List<ArchivedNotification> findArchivable(@Param("before") LocalDateTime before, Pageable pageable);
+
+    // unread rows per user, so the counters can be corrected when the rows go away
+    @Query("SELECT n.user.id, COUNT(n) FROM Notification n WHERE n.id IN :ids AND n.readAt IS NULL GROUP BY n.user.id")
+    List<Object[]> countUnreadByUser(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
 }
@@ -0,0 +1,21 @@
+package com.example.demo.notification.repo;
+
+import com.example.demo.notification.entity.NotificationUnreadCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface NotificationUnreadCounterRepository extends JpaRepository<NotificationUnreadCounter, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO notification_unread_counters (user_id, unread_count) VALUES (:userId, :delta) " +
+            "ON DUPLICATE KEY UPDATE unread_count = unread_count + :delta", nativeQuery = true)
+    int increment(@Param("userId") Long userId, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "UPDATE notification_unread_counters SET unread_count = GREATEST(unread_count - :delta, 0) " +
+            "WHERE user_id = :userId", nativeQuery = true)
+    int decrement(@Param("userId") Long userId, @Param("delta") long delta);
+
+}
@@ -0,0 +1,30 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.enums.NotificationType;
+import com.example.demo.notification.dtos.OutgoingNotification;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One notification queued on one channel. Identity equality on purpose: two equal
+ * notifications are still two deliveries. With a result future the caller owns retries;
+ * without one the router retries and dead-letters.
+ */
+final class ChannelDelivery {
+
+    final NotificationType channel;
+    final OutgoingNotification item;
+    final int attempt;
+    final CompletableFuture<Void> result;
+
+    ChannelDelivery(NotificationType channel, OutgoingNotification item, int attempt, CompletableFuture<Void> result) {
+        this.channel = channel;
+        this.item = item;
+        this.attempt = attempt;
+        this.result = result;
+    }
+
+    ChannelDelivery nextAttempt() {
+        return new ChannelDelivery(channel, item, attempt + 1, result);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.notification.channel.NotificationChannel;
+import com.example.demo.notification.dtos.OutgoingNotification;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * The worker pool of one channel: a bounded queue, a fixed number of workers that each
+ * take up to batch-size queued notifications at once, and a token bucket in front of the
+ * channel. Lanes share nothing, so a slow channel only backs up its own queue.
+ */
+@Slf4j
+final class ChannelLane {
+
+    private static final long POLL_MS = 100;
+
+    private final NotificationChannel channel;
+    private final BlockingQueue<ChannelDelivery> queue;
+    private final TokenBucket rateLimit;
+    private final int threads;
+    private final int batchSize;
+    private final BiConsumer<ChannelDelivery, RuntimeException> onFailure;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final Timer sentTimer;
+    private final Timer failedTimer;
+    private final DistributionSummary batchSizes;
+
+    ChannelLane(NotificationChannel channel, int threads, int queueCapacity, double ratePerSecond, int batchSize,
+                BiConsumer<ChannelDelivery, RuntimeException> onFailure, MeterRegistry meterRegistry) {
+        this.channel = channel;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.rateLimit = new TokenBucket(ratePerSecond);
+        this.threads = threads;
+        this.batchSize = Math.max(batchSize, 1);
+        this.onFailure = onFailure;
+
+        String name = channel.type().name();
+        this.sentTimer = Timer.builder("notification.channel.send")
+                .description("Time to deliver one batch on a channel")
+                .tags("channel", name, "outcome", "sent")
+                .register(meterRegistry);
+        this.failedTimer = Timer.builder("notification.channel.send")
+                .description("Time to deliver one batch on a channel")
+                .tags("channel", name, "outcome", "failed")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("notification.channel.batch_size")
+                .tags("channel", name)
+                .register(meterRegistry);
+        meterRegistry.gauge("notification.channel.queue_depth", Tags.of("channel", name), queue, BlockingQueue::size);
+    }
+
+    void start() {
+        running = true;
+        String prefix = "notification-" + channel.type().name().toLowerCase() + "-";
+        for (int i = 1; i <= threads; i++) {
+            Thread worker = new Thread(this::work, prefix + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    boolean offer(ChannelDelivery delivery) {
+        return running && queue.offer(delivery);
+    }
+
+    // overflow with caller-runs: same rate limit, but on the caller's thread
+    void sendNow(ChannelDelivery delivery) {
+        rateLimit.acquire(1);
+        deliver(List.of(delivery));
+    }
+
+    /**
+     * Lets the workers drain the queue for up to timeoutMs and returns whatever is left.
+     */
+    List<ChannelDelivery> stop(long timeoutMs) throws InterruptedException {
+        running = false;
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (Thread worker : workers) {
+            worker.join(Math.max(deadline - System.currentTimeMillis(), 1));
+        }
+        List<ChannelDelivery> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        return leftover;
+    }
+
+
+    private void work() {
+        List<ChannelDelivery> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            ChannelDelivery first;
+            try {
+                first = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            rateLimit.acquire(batch.size());
+            deliver(batch);
+            batch.clear();
+        }
+    }
+
+
+    private void deliver(List<ChannelDelivery> batch) {
+        List<OutgoingNotification> items = new ArrayList<>(batch.size());
+        for (ChannelDelivery delivery : batch) {
+            items.add(delivery.item);
+        }
+
+        long start = System.nanoTime();
+        List<RuntimeException> results;
+        try {
+            results = channel.send(items);
+        } catch (RuntimeException e) {
+            results = Collections.nCopies(batch.size(), e);
+        }
+        long elapsed = System.nanoTime() - start;
+        batchSizes.record(batch.size());
+
+        boolean anyFailed = false;
+        for (int i = 0; i < batch.size(); i++) {
+            ChannelDelivery delivery = batch.get(i);
+            RuntimeException failure = results.get(i);
+            if (failure == null) {
+                if (delivery.result != null) {
+                    delivery.result.complete(null);
+                }
+            } else {
+                anyFailed = true;
+                try {
+                    onFailure.accept(delivery, failure);
+                } catch (RuntimeException e) {
+                    log.error("Failure handling for {} notification failed", channel.type(), e);
+                }
+            }
+        }
+        (anyFailed ? failedTimer : sentTimer).record(elapsed, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.notification.dtos.NotificationDTO;
+import com.example.demo.notification.dtos.OutgoingNotification;
+import com.example.demo.notification.entity.Notification;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders, sends and logs emails on the calling thread. Failures propagate as
+ * MailException so whoever schedules the send decides about retries.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmailSender {
+
+    private final JavaMailSender mailSender;
+    private final SmtpConnectionPool smtpConnectionPool;
+    private final TemplateRenderer templateRenderer;
+    private final NotificationLogWriter notificationLogWriter;
+
+    // false: every message opens its own connection through JavaMailSender
+    @Value("${notification.smtp.pool.enabled}")
+    private boolean pooled;
+
+    /**
+     * Sends the emails back to back over one pooled connection. The result has one entry
+     * per email: null when it was sent, otherwise the failure.
+     */
+    public List<MailException> sendAll(List<OutgoingNotification> emails) {
+        List<MailException> results = new ArrayList<>(emails.size());
+        List<MimeMessage> messages = new ArrayList<>(emails.size());
+        List<Integer> positions = new ArrayList<>(emails.size());
+
+        for (int i = 0; i < emails.size(); i++) {
+            results.add(null);
+            try {
+                messages.add(buildMessage(emails.get(i).notification()));
+                positions.add(i);
+            } catch (MailException e) {
+                results.set(i, e);
+            } catch (RuntimeException e) {
+                results.set(i, new MailPreparationException("Failed to render email", e));
+            }
+        }
+
+        List<MailException> sendResults = pooled ? smtpConnectionPool.sendAll(messages) : sendEach(messages);
+
+        List<Notification> sent = new ArrayList<>(messages.size());
+        for (int m = 0; m < messages.size(); m++) {
+            int i = positions.get(m);
+            results.set(i, sendResults.get(m));
+            if (sendResults.get(m) == null) {
+                sent.add(toNotification(emails.get(i).notification(), emails.get(i).user()));
+            }
+        }
+        notificationLogWriter.append(sent);
+        return results;
+    }
+
+
+    private List<MailException> sendEach(List<MimeMessage> messages) {
+        List<MailException> results = new ArrayList<>(messages.size());
+        for (MimeMessage message : messages) {
+            try {
+                mailSender.send(message);
+                results.add(null);
+            } catch (MailException e) {
+                results.add(e);
+            }
+        }
+        return results;
+    }
+
+
+    private MimeMessage buildMessage(NotificationDTO notificationDTO) {
+        try {
+            MimeMessage mimeMessage = mailSender.createMimeMessage();
+
+            MimeMessageHelper helper = new MimeMessageHelper(
+                    mimeMessage,
+                    MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
+                    StandardCharsets.UTF_8.name()
+            );
+
+            helper.setTo(notificationDTO.getRecipient());
+            helper.setSubject(notificationDTO.getSubject());
+
+            // Use template if provided
+            if (notificationDTO.getTemplateName() != null) {
+                String htmlContent = templateRenderer.render(notificationDTO.getTemplateName(), notificationDTO.getTemplateVariables());
+                helper.setText(htmlContent, true);
+            } else {
+                helper.setText(notificationDTO.getBody(), true);
+            }
+            return mimeMessage;
+
+        } catch (MessagingException e) {
+            throw new MailPreparationException("Failed to build email", e);
+        }
+    }
+
+
+    private Notification toNotification(NotificationDTO notificationDTO, User user) {
+        return Notification.builder()
+                .recipient(notificationDTO.getRecipient())
+                .subject(notificationDTO.getSubject())
+                .body(notificationDTO.getBody())
+                .type(NotificationType.EMAIL)
+                .user(user)
+                .build();
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.notification.dtos.ArchivedNotification;
+import com.example.demo.notification.repo.NotificationArchiveLeaseRepository;
+import com.example.demo.notification.repo.NotificationRepository;
+import com.example.demo.notification.repo.NotificationUnreadCounterRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves notifications older than the retention period out of the hot table into
+ * append-only archive files: {dir}/{yyyy-MM}/shard-NN.ndjson.gz, one JSON line per row,
+ * bucketed by month of creation and user id.
+ * <p>
+ * Every batch appends one gzip member per user, and shard-NN.idx next to it gets a
+ * fixed-size (userId, offset, length) record per member. A lookup reads the small index
+ * and then only that user's members, not the whole shard.
+ * <p>
+ * Members are forced to disk before their index records, and both before the rows are
+ * deleted. A crash in between archives those rows again on the next run (an unindexed
+ * member is never read); readers drop the duplicates by id.
+ * <p>
+ * The archive dir is shared: every instance must mount the same storage there, as any
+ * instance serves {@link #read} and the job moves between instances. Only the instance
+ * holding the run lease (a row in notification_archive_leases) archives; it renews the
+ * lease before every batch and stops once another instance took it over, so two writers
+ * never append to the same shard. The in-process lock only keeps this instance's readers
+ * off a member it is still writing; readers elsewhere never see one, since a member is
+ * indexed only after it is on disk.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationArchiver {
+
+    private static final String LEASE = "notifications";
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationUnreadCounterRepository unreadCounterRepository;
+    private final NotificationArchiveLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.archive.enabled}")
+    private boolean enabled;
+
+    @Value("${notification.archive.dir}")
+    private String archiveDir;
+
+    @Value("${notification.archive.retention-days}")
+    private int retentionDays;
+
+    // changing this after files were written makes older months unreadable by user
+    @Value("${notification.archive.shards}")
+    private int shards;
+
+    @Value("${notification.archive.batch-size}")
+    private int batchSize;
+
+    @Value("${notification.archive.lease-ms}")
+    private long leaseMs;
+
+    // appends are short; the write lock only keeps readers off a half-written member
+    private final ReadWriteLock fileLock = new ReentrantReadWriteLock();
+
+    private Path root;
+    private Counter archivedCounter;
+    private Timer batchTimer;
+
+    @PostConstruct
+    private void init() {
+        root = Paths.get(archiveDir).toAbsolutePath();
+        archivedCounter = Counter.builder("notification.archive.archived")
+                .description("Notifications moved to the archive")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("notification.archive.batch")
+                .description("Time to archive and delete one batch of notifications")
+                .register(meterRegistry);
+    }
+
+
+    @Scheduled(cron = "${notification.archive.cron}")
+    public void archiveExpired() {
+        if (!enabled) {
+            return;
+        }
+        leaseRepository.insertIfAbsent(LEASE);
+        String ownerToken = UUID.randomUUID().toString();
+        if (leaseRepository.acquire(LEASE, ownerToken, leaseUntil(), LocalDateTime.now()) == 0) {
+            log.info("Notifications are being archived by another instance");
+            return;
+        }
+        try {
+            archiveBatches(ownerToken);
+        } finally {
+            leaseRepository.release(LEASE, ownerToken);
+        }
+    }
+
+
+    private void archiveBatches(String ownerToken) {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        long start = System.nanoTime();
+        int total = 0;
+        List<ArchivedNotification> batch;
+        do {
+            if (leaseRepository.renew(LEASE, ownerToken, leaseUntil()) == 0) {
+                log.warn("Lost the notification archive lease to another instance after {} rows", total);
+                break;
+            }
+            long batchStart = System.nanoTime();
+            batch = notificationRepository.findArchivable(before, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            try {
+                append(batch);
+            } catch (UncheckedIOException e) {
+                // nothing is deleted unless it is safely on disk
+                log.error("Failed to write notification archive, {} rows stay in the table", batch.size(), e);
+                break;
+            }
+            delete(batch);
+            total += batch.size();
+            archivedCounter.increment(batch.size());
+            batchTimer.record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+        } while (batch.size() == batchSize);
+
+        if (total > 0) {
+            log.info("Archived {} notifications older than {} in {} ms", total, before,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+
+    /**
+     * Archived notifications of one user for one month, newest first.
+     */
+    public List<ArchivedNotification> read(Long userId, YearMonth month) {
+        Path file = fileFor(month, userId);
+        Path index = indexFor(file);
+        Map<Long, ArchivedNotification> found = new LinkedHashMap<>();
+
+        fileLock.readLock().lock();
+        try {
+            if (!Files.exists(index)) {
+                return List.of();
+            }
+            try (FileChannel data = FileChannel.open(file, StandardOpenOption.READ)) {
+                for (long[] member : membersOf(index, userId)) {
+                    byte[] bytes = readFully(data, member[0], (int) member[1]);
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                            new GZIPInputStream(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            ArchivedNotification row = objectMapper.readValue(line, ArchivedNotification.class);
+                            found.put(row.id(), row);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read notification archive " + file, e);
+        } finally {
+            fileLock.readLock().unlock();
+        }
+
+        List<ArchivedNotification> rows = new ArrayList<>(found.values());
+        rows.sort(Comparator.comparing(ArchivedNotification::createdAt)
+                .thenComparing(ArchivedNotification::id).reversed());
+        return rows;
+    }
+
+
+    private byte[] readFully(FileChannel data, long offset, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while (bytes.hasRemaining()) {
+            if (data.read(bytes, offset + bytes.position()) < 0) {
+                throw new EOFException("Archive member at " + offset + " runs past the end of the file");
+            }
+        }
+        return bytes.array();
+    }
+
+
+    // (offset, length) of every member of the user, in file order
+    private List<long[]> membersOf(Path index, Long userId) throws IOException {
+        List<long[]> members = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(index), 64 * 1024))) {
+            while (true) {
+                long owner = in.readLong();
+                long offset = in.readLong();
+                int length = in.readInt();
+                if (owner == userId) {
+                    members.add(new long[]{offset, length});
+                }
+            }
+        } catch (EOFException e) {
+            // end of the index, or a record cut short by a crash mid-append; all complete records were read
+        }
+        return members;
+    }
+
+
+    private void append(List<ArchivedNotification> batch) {
+        // TreeMap keeps the file order stable between runs
+        Map<Path, Map<Long, List<ArchivedNotification>>> byFile = batch.stream()
+                .collect(Collectors.groupingBy(
+                        row -> fileFor(YearMonth.from(row.createdAt()), row.userId()),
+                        TreeMap::new,
+                        Collectors.groupingBy(row -> row.userId() == null ? 0L : row.userId(), TreeMap::new, Collectors.toList())));
+
+        fileLock.writeLock().lock();
+        try {
+            for (Map.Entry<Path, Map<Long, List<ArchivedNotification>>> entry : byFile.entrySet()) {
+                Path file = entry.getKey();
+                Files.createDirectories(file.getParent());
+
+                ByteArrayOutputStream indexRecords = new ByteArrayOutputStream();
+                DataOutputStream index = new DataOutputStream(indexRecords);
+                try (FileChannel data = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    long offset = data.size();
+                    for (Map.Entry<Long, List<ArchivedNotification>> user : entry.getValue().entrySet()) {
+                        byte[] member = gzipMember(user.getValue());
+                        ByteBuffer bytes = ByteBuffer.wrap(member);
+                        while (bytes.hasRemaining()) {
+                            data.write(bytes, offset + bytes.position());
+                        }
+                        index.writeLong(user.getKey());
+                        index.writeLong(offset);
+                        index.writeInt(member.length);
+                        offset += member.length;
+                    }
+                    data.force(true);
+                }
+
+                try (FileChannel indexFile = FileChannel.open(indexFor(file), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    ByteBuffer bytes = ByteBuffer.wrap(indexRecords.toByteArray());
+                    while (bytes.hasRemaining()) {
+                        indexFile.write(bytes);
+                    }
+                    indexFile.force(true);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+
+
+    private byte[] gzipMember(List<ArchivedNotification> rows) throws IOException {
+        ByteArrayOutputStream member = new ByteArrayOutputStream();
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(member, 64 * 1024), StandardCharsets.UTF_8))) {
+            for (ArchivedNotification row : rows) {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.newLine();
+            }
+        }
+        return member.toByteArray();
+    }
+
+
+    private void delete(List<ArchivedNotification> batch) {
+        List<Long> ids = batch.stream().map(ArchivedNotification::id).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Object[] unread : notificationRepository.countUnreadByUser(ids)) {
+                unreadCounterRepository.decrement((Long) unread[0], (Long) unread[1]);
+            }
+            notificationRepository.deleteByIdIn(ids);
+        });
+    }
+
+
+    private Path fileFor(YearMonth month, Long userId) {
+        int shard = userId == null ? 0 : (int) Math.floorMod(userId, (long) shards);
+        return root.resolve(month.toString()).resolve(String.format("shard-%02d.ndjson.gz", shard));
+    }
+
+
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now().plus(leaseMs, ChronoUnit.MILLIS);
+    }
+
+
+    private Path indexFor(Path file) {
+        return file.resolveSibling(file.getFileName().toString().replace(".ndjson.gz", ".idx"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.notification.dtos.NotificationDTO;
+import com.example.demo.notification.entity.Notification;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes recorded notifications to the user's open SSE streams. Streams are plain async-servlet
+ * emitters kept in memory, so an idle connection holds no thread; pushes run on
+ * virtual threads so a slow client never blocks the sender.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationFeedPublisher {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.stream.timeout-ms}")
+    private long streamTimeoutMs;
+
+    private final Map<Long, Set<SseEmitter>> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private ExecutorService pushExecutor;
+
+    @PostConstruct
+    private void start() {
+        pushExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        meterRegistry.gauge("notification.stream.open", openStreams);
+    }
+
+    @PreDestroy
+    private void stop() {
+        streams.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        pushExecutor.shutdown();
+    }
+
+
+    // called once the records are committed, so every pushed notification has its id
+    public void publish(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            if (notification.getUser() != null) {
+                push(notification.getUser().getId(), toFeedDTO(notification));
+            }
+        }
+    }
+
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        // compute/computeIfPresent keep add and remove-when-empty atomic per user
+        streams.compute(userId, (id, emitters) -> {
+            Set<SseEmitter> set = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            set.add(emitter);
+            return set;
+        });
+        openStreams.incrementAndGet();
+
+        Runnable remove = () -> unsubscribe(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+
+    // keeps proxies from closing idle streams and flushes out clients that went away
+    @Scheduled(fixedDelayString = "${notification.stream.heartbeat-ms}")
+    public void heartbeat() {
+        streams.forEach((userId, emitters) -> emitters.forEach(emitter ->
+                pushExecutor.execute(() -> send(userId, emitter, SseEmitter.event().comment("heartbeat")))));
+    }
+
+
+    // the feed view leaves out the body, which can be a whole statement
+    public NotificationDTO toFeedDTO(Notification notification) {
+        return NotificationDTO.builder()
+                .id(notification.getId())
+                .subject(notification.getSubject())
+                .recipient(notification.getRecipient())
+                .type(notification.getType())
+                .createdAt(notification.getCreatedAt())
+                .readAt(notification.getReadAt())
+                .build();
+    }
+
+
+    private void push(Long userId, NotificationDTO notification) {
+        Set<SseEmitter> emitters = streams.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            pushExecutor.execute(() -> send(userId, emitter, SseEmitter.event()
+                    .name("notification")
+                    .id(String.valueOf(notification.getId()))
+                    .data(notification)));
+        }
+    }
+
+
+    private void send(Long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping notification stream of user {}: {}", userId, e.getMessage());
+            unsubscribe(userId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+
+    private void unsubscribe(Long userId, SseEmitter emitter) {
+        streams.computeIfPresent(userId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                openStreams.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.notification.dtos.NotificationDTO;
+import com.example.demo.res.Response;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+public interface NotificationFeedService {
+
+    /**
+     * Newest first, seeking on (createdAt, id) from an opaque cursor; null or blank starts at the newest.
+     */
+    Response<List<NotificationDTO>> getMyNotifications(String cursor, int size);
+
+    Response<Long> getMyUnreadCount();
+
+    Response<?> markAsRead(Long notificationId);
+
+    Response<?> markAllAsRead();
+
+    SseEmitter streamMyNotifications();
+
+    /**
+     * Notifications already moved to the archive, for one month ("yyyy-MM"), newest first.
+     */
+    Response<List<NotificationDTO>> getMyArchivedNotifications(String month);
+
+}
@@ -0,0 +1,189 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.exceptions.NotFoundException;
+import com.example.demo.notification.dtos.ArchivedNotification;
+import com.example.demo.notification.dtos.NotificationDTO;
+import com.example.demo.notification.entity.Notification;
+import com.example.demo.notification.entity.NotificationUnreadCounter;
+import com.example.demo.notification.repo.NotificationRepository;
+import com.example.demo.notification.repo.NotificationUnreadCounterRepository;
+import com.example.demo.res.Response;
+import com.example.demo.security.CurrentUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class NotificationFeedServiceImpl implements NotificationFeedService {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationUnreadCounterRepository unreadCounterRepository;
+    private final NotificationFeedPublisher feedPublisher;
+    private final NotificationArchiver notificationArchiver;
+    private final CurrentUser currentUser;
+
+
+    @Override
+    public Response<List<NotificationDTO>> getMyNotifications(String cursor, int size) {
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1");
+        }
+        Long userId = currentUser.getId();
+
+        // one extra row tells whether another page exists
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Notification> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = notificationRepository.findFirstPage(userId, limit);
+        } else {
+            String[] position = decodeCursor(cursor);
+            rows = notificationRepository.findPageAfter(userId, LocalDateTime.parse(position[0]),
+                    Long.parseLong(position[1]), limit);
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<Notification> page = hasMore ? rows.subList(0, size) : rows;
+
+        Map<String, Serializable> meta = new HashMap<>();
+        meta.put("pageSize", size);
+        meta.put("hasMore", hasMore);
+        if (hasMore) {
+            meta.put("nextCursor", encodeCursor(page.get(size - 1)));
+        }
+
+        return Response.<List<NotificationDTO>>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Notifications retrieved")
+                .data(page.stream().map(feedPublisher::toFeedDTO).toList())
+                .meta(meta)
+                .build();
+    }
+
+    @Override
+    public Response<Long> getMyUnreadCount() {
+        Long userId = currentUser.getId();
+
+        long unread = unreadCounterRepository.findById(userId)
+                .map(NotificationUnreadCounter::getUnreadCount)
+                .orElse(0L);
+
+        return Response.<Long>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Unread count retrieved")
+                .data(unread)
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public Response<?> markAsRead(Long notificationId) {
+        Long userId = currentUser.getId();
+
+        int updated = notificationRepository.markRead(notificationId, userId, LocalDateTime.now());
+        if (updated == 0 && notificationRepository.findById(notificationId)
+                .filter(n -> n.getUser() != null && n.getUser().getId().equals(userId))
+                .isEmpty()) {
+            throw new NotFoundException("Notification not found");
+        }
+        if (updated > 0) {
+            unreadCounterRepository.decrement(userId, updated);
+        }
+
+        return Response.builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Notification marked as read")
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public Response<?> markAllAsRead() {
+        Long userId = currentUser.getId();
+
+        int updated = notificationRepository.markAllRead(userId, LocalDateTime.now());
+        if (updated > 0) {
+            unreadCounterRepository.decrement(userId, updated);
+        }
+
+        return Response.builder()
+                .statusCode(HttpStatus.OK.value())
+                .message(updated + " notifications marked as read")
+                .build();
+    }
+
+    @Override
+    public SseEmitter streamMyNotifications() {
+        return feedPublisher.subscribe(currentUser.getId());
+    }
+
+    @Override
+    public Response<List<NotificationDTO>> getMyArchivedNotifications(String month) {
+        YearMonth period;
+        try {
+            period = YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Month must be in the format yyyy-MM");
+        }
+        Long userId = currentUser.getId();
+
+        List<NotificationDTO> archived = notificationArchiver.read(userId, period).stream()
+                .map(this::toArchivedDTO)
+                .toList();
+
+        return Response.<List<NotificationDTO>>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Archived notifications retrieved")
+                .data(archived)
+                .build();
+    }
+
+
+    private NotificationDTO toArchivedDTO(ArchivedNotification row) {
+        return NotificationDTO.builder()
+                .id(row.id())
+                .subject(row.subject())
+                .recipient(row.recipient())
+                .body(row.body())
+                .type(row.type())
+                .createdAt(row.createdAt())
+                .readAt(row.readAt())
+                .build();
+    }
+
+
+    private String encodeCursor(Notification last) {
+        String position = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.notification.entity.Notification;
+import com.example.demo.notification.repo.NotificationRepository;
+import com.example.demo.notification.repo.NotificationUnreadCounterRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Buffers sent notifications and writes them in batches: a writer thread flushes every
+ * flush-interval-ms or batch-size records, whichever comes first, as one DB transaction
+ * of JDBC-batched inserts (pooled sequence ids, so Hibernate can batch them) plus the
+ * unread counter updates. Afterwards the rows are pushed to the users' feeds.
+ * <p>
+ * A full buffer makes the caller flush its records itself; shutdown flushes what is left.
+ * A failed flush is retried with exponential backoff, so a DB failover or a deadlock does
+ * not lose the batch; records are only dropped (and counted) after the last attempt.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationLogWriter {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationUnreadCounterRepository unreadCounterRepository;
+    private final NotificationFeedPublisher feedPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.log.batch-size}")
+    private int batchSize;
+
+    @Value("${notification.log.flush-interval-ms}")
+    private long flushIntervalMs;
+
+    @Value("${notification.log.buffer-capacity}")
+    private int bufferCapacity;
+
+    @Value("${notification.log.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${notification.log.retry-backoff-ms}")
+    private long retryBackoffMs;
+
+    private BlockingQueue<Notification> buffer;
+    private Thread writer;
+    private volatile boolean running;
+
+    private Counter flushedCounter;
+    private Counter failedCounter;
+    private Timer flushTimer;
+
+    @PostConstruct
+    private void start() {
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        flushedCounter = Counter.builder("notification.log.flushed")
+                .description("Notification records written")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("notification.log.failed")
+                .description("Notification records lost after the last flush attempt")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("notification.log.flush")
+                .description("Time to write one batch of notification records")
+                .register(meterRegistry);
+        meterRegistry.gauge("notification.log.pending", buffer, BlockingQueue::size);
+
+        running = true;
+        writer = new Thread(this::runWriter, "notification-log-writer");
+        writer.start();
+    }
+
+    @PreDestroy
+    private void stop() throws InterruptedException {
+        running = false;
+        // the writer keeps flushing until the buffer is empty
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+
+    public void append(List<Notification> notifications) {
+        List<Notification> overflow = null;
+        for (Notification notification : notifications) {
+            if (!running || !buffer.offer(notification)) {
+                if (overflow == null) {
+                    overflow = new ArrayList<>();
+                }
+                overflow.add(notification);
+            }
+        }
+        if (overflow != null) {
+            flush(overflow);
+        }
+    }
+
+
+    private void runWriter() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                Notification first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // fill up to batch-size, but never hold the first record longer than the interval
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Notification next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+
+    private void flush(List<Notification> batch) {
+        long start = System.nanoTime();
+        List<Notification> saved = null;
+        for (int attempt = 1; saved == null; attempt++) {
+            try {
+                saved = write(batch);
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !backOff(attempt)) {
+                    failedCounter.increment(batch.size());
+                    log.error("Giving up on {} notification records after {} attempts", batch.size(), attempt, e);
+                    return;
+                }
+                log.warn("Failed to write {} notification records (attempt {}), retrying: {}", batch.size(), attempt, e.getMessage());
+                // ids handed out by the rolled back attempt would make saveAll merge instead of insert
+                batch.forEach(notification -> notification.setId(null));
+            }
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        flushedCounter.increment(saved.size());
+
+        feedPublisher.publish(saved);
+    }
+
+
+    private List<Notification> write(List<Notification> batch) {
+        return transactionTemplate.execute(status -> {
+            List<Notification> rows = notificationRepository.saveAll(batch);
+            Map<Long, Long> perUser = rows.stream()
+                    .filter(n -> n.getUser() != null)
+                    .collect(Collectors.groupingBy(n -> n.getUser().getId(), Collectors.counting()));
+            perUser.forEach(unreadCounterRepository::increment);
+            return rows;
+        });
+    }
+
+
+    // false when interrupted (shutdown), which ends the retries
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs << Math.min(attempt - 1, 16));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
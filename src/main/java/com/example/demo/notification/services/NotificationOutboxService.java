@@ -0,0 +1,21 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.notification.dtos.NotificationDTO;
+
+public interface NotificationOutboxService {
+
+    /**
+     * Stores the notification in the outbox as part of the caller's DB transaction; it is
+     * sent only if that transaction commits.
+     */
+    void enqueue(NotificationDTO notificationDTO, User user);
+
+    /**
+     * Claims due outbox rows and delivers them. Called by the scheduler.
+     */
+    void relay();
+
+    void purgeSent();
+
+}
@@ -0,0 +1,371 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.OutboxStatus;
+import com.example.demo.exceptions.ServiceUnavailableException;
+import com.example.demo.notification.dtos.NotificationDTO;
+import com.example.demo.notification.dtos.OutgoingNotification;
+import com.example.demo.notification.entity.NotificationOutbox;
+import com.example.demo.notification.entity.NotificationPreference;
+import com.example.demo.notification.repo.NotificationOutboxRepository;
+import com.example.demo.notification.repo.NotificationPreferenceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox for notifications, one row per channel. Rows are claimed in batches with
+ * SELECT ... FOR UPDATE SKIP LOCKED, leased by pushing availableAt forward, and handed to
+ * the NotificationRouter outside of any DB transaction. A row is marked SENT only after
+ * its channel confirmed delivery, so delivery is at-least-once.
+ * <p>
+ * Each claim stamps its rows with a fresh token, and marking them sent, rescheduling or
+ * postponing them are UPDATEs guarded by that token. Once a lease runs out and another relay
+ * claims the rows, the first relay's late writes match nothing. The relay waits for deliveries
+ * for at most half the lease; a delivery still queued then is settled when it completes.
+ * <p>
+ * Email alerts of users who opted into digests carry a digest key (user + template) and are held
+ * for the digest window. When the first of them is due, up to digest.max-items pending rows
+ * with the same key are claimed with it (rows another relay holds are left alone) and the
+ * group goes out as one digest email.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationOutboxServiceImpl implements NotificationOutboxService {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationRouter notificationRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final TemplateVariablesCodec variablesCodec;
+    private final NotificationPreferenceRepository preferenceRepository;
+
+    @Value("${notification.outbox.batch-size}")
+    private int batchSize;
+
+    @Value("${notification.outbox.lease-ms}")
+    private long leaseMs;
+
+    @Value("${notification.outbox.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${notification.outbox.retry-backoff-ms}")
+    private long retryBackoffMs;
+
+    @Value("${notification.outbox.retention-hours}")
+    private long retentionHours;
+
+    @Value("${notification.digest.templates}")
+    private Set<String> digestTemplates;
+
+    @Value("${notification.digest.window-ms}")
+    private long digestWindowMs;
+
+    @Value("${notification.digest.max-items}")
+    private int digestMaxItems;
+
+    private record Claim(String token, long claimedAt, List<NotificationOutbox> due, List<NotificationOutbox> all) {
+    }
+
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(NotificationDTO notificationDTO, User user) {
+        LocalDateTime now = LocalDateTime.now();
+
+        // one preference read decides both the channels and the digest; skipped when neither
+        // is open, as for a pre-rendered email
+        boolean preferenceMatters = notificationDTO.getType() == null
+                || (notificationDTO.getTemplateName() != null && digestTemplates.contains(notificationDTO.getTemplateName()));
+        NotificationPreference preference = !preferenceMatters || user == null || user.getId() == null ? null
+                : preferenceRepository.findByUser_Id(user.getId()).orElse(null);
+        Set<NotificationType> channels = notificationDTO.getType() != null
+                ? EnumSet.of(notificationDTO.getType())
+                : notificationRouter.channelsFor(preference);
+
+        List<NotificationOutbox> rows = new ArrayList<>(channels.size());
+        for (NotificationType channel : channels) {
+            String digestKey = channel == NotificationType.EMAIL ? digestKey(notificationDTO, user, preference) : null;
+            rows.add(NotificationOutbox.builder()
+                    .channel(channel)
+                    .recipient(notificationDTO.getRecipient())
+                    .subject(notificationDTO.getSubject())
+                    .templateName(notificationDTO.getTemplateName())
+                    .templateVariables(variablesCodec.write(notificationDTO.getTemplateVariables()))
+                    .body(notificationDTO.getBody())
+                    .user(user)
+                    .digestKey(digestKey)
+                    .status(OutboxStatus.PENDING)
+                    .availableAt(digestKey == null ? now : now.plus(digestWindowMs, ChronoUnit.MILLIS))
+                    .createdAt(now)
+                    .build());
+        }
+        outboxRepository.saveAll(rows);
+    }
+
+
+    @Override
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms}")
+    public void relay() {
+        Claim claim;
+        boolean saturated = false;
+        do {
+            claim = claimBatch();
+            if (claim.all().isEmpty()) {
+                return;
+            }
+
+            // one notification per group: a single row, or all alerts sharing a digest key
+            Map<Object, List<NotificationOutbox>> groups = new LinkedHashMap<>();
+            for (NotificationOutbox row : claim.all()) {
+                Object key = row.getDigestKey() != null ? row.getDigestKey() : row.getId();
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+            }
+
+            // queued on the channel lanes, which batch them (emails share one SMTP connection)
+            List<List<NotificationOutbox>> readable = new ArrayList<>(groups.size());
+            List<CompletableFuture<Void>> deliveries = new ArrayList<>(groups.size());
+            for (List<NotificationOutbox> group : groups.values()) {
+                NotificationOutbox first = group.get(0);
+                try {
+                    NotificationDTO notification = group.size() == 1 ? toDTO(first) : toDigest(group);
+                    NotificationType channel = first.getChannel() != null ? first.getChannel() : NotificationType.EMAIL;
+                    deliveries.add(notificationRouter.deliver(channel, new OutgoingNotification(notification, first.getUser())));
+                    readable.add(group);
+                } catch (RuntimeException e) {
+                    settle(group, claim.token(), e);
+                }
+            }
+
+            // half the lease, so the writes below land well before another relay may claim the rows
+            long waitUntil = claim.claimedAt() + TimeUnit.MILLISECONDS.toNanos(leaseMs / 2);
+            List<Long> sent = new ArrayList<>(claim.all().size());
+            for (int i = 0; i < readable.size(); i++) {
+                List<NotificationOutbox> group = readable.get(i);
+                CompletableFuture<Void> delivery = deliveries.get(i);
+                RuntimeException failure;
+                try {
+                    delivery.get(Math.max(waitUntil - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                    failure = null;
+                } catch (TimeoutException | InterruptedException e) {
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    // still queued on a backed-up lane; settled by the lane thread once it is done
+                    String token = claim.token();
+                    delivery.whenComplete((ignored, error) -> settleLate(group, token, unwrap(error)));
+                    saturated = true;
+                    continue;
+                } catch (ExecutionException e) {
+                    failure = unwrap(e);
+                }
+
+                if (failure == null) {
+                    group.forEach(row -> sent.add(row.getId()));
+                } else {
+                    // a full lane (or a stopping router) never tried to send, so it costs no attempt
+                    saturated |= failure instanceof ServiceUnavailableException;
+                    settle(group, claim.token(), failure);
+                }
+            }
+
+            if (!sent.isEmpty()) {
+                markSent(sent, claim.token());
+            }
+            // no point claiming more while the lanes are full; the next poll tries again
+        } while (claim.due().size() == batchSize && !saturated);
+    }
+
+
+    @Override
+    @Scheduled(fixedDelayString = "${notification.outbox.purge-interval-ms}")
+    public void purgeSent() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = outboxRepository.deleteSentBatch(before, batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+
+        if (total > 0) {
+            log.info("Purged {} sent outbox rows", total);
+        }
+    }
+
+
+    // the claim transaction only takes the leases; nothing is sent while rows are locked
+    private Claim claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationOutbox> due = outboxRepository.claimBatch(now, batchSize);
+            List<NotificationOutbox> rows = new ArrayList<>(due);
+
+            // pull in the not yet due alerts of the same digests, they go out in the same email
+            Set<String> digestKeys = due.stream()
+                    .map(NotificationOutbox::getDigestKey)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            if (!digestKeys.isEmpty()) {
+                Set<Long> claimedIds = due.stream().map(NotificationOutbox::getId).collect(Collectors.toSet());
+                // capped per digest, so one busy user cannot crowd the others out of the claim
+                for (String digestKey : digestKeys) {
+                    for (NotificationOutbox row : outboxRepository.claimDigestRows(digestKey, now, digestMaxItems)) {
+                        if (claimedIds.add(row.getId())) {
+                            rows.add(row);
+                        }
+                    }
+                }
+            }
+
+            String token = UUID.randomUUID().toString();
+            LocalDateTime leaseUntil = now.plus(leaseMs, ChronoUnit.MILLIS);
+            for (NotificationOutbox row : rows) {
+                row.setAttempts(row.getAttempts() + 1);
+                row.setAvailableAt(leaseUntil);
+                row.setClaimToken(token);
+            }
+            return new Claim(token, System.nanoTime(), due, rows);
+        });
+    }
+
+
+    // null unless the template is digestible and the user opted in
+    private String digestKey(NotificationDTO notificationDTO, User user, NotificationPreference preference) {
+        String template = notificationDTO.getTemplateName();
+        if (template == null || preference == null || !preference.isDigestEnabled() || !digestTemplates.contains(template)) {
+            return null;
+        }
+        return user.getId() + ":" + template;
+    }
+
+
+    private static RuntimeException unwrap(Throwable error) {
+        if (error == null) {
+            return null;
+        }
+        Throwable cause = error instanceof ExecutionException || error instanceof CompletionException
+                ? error.getCause() : error;
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+
+
+    private void settle(List<NotificationOutbox> group, String token, RuntimeException failure) {
+        List<Long> ids = group.stream().map(NotificationOutbox::getId).toList();
+        if (failure == null) {
+            markSent(ids, token);
+        } else if (failure instanceof ServiceUnavailableException) {
+            postpone(ids, token);
+        } else {
+            group.forEach(row -> reschedule(row, token, failure));
+        }
+    }
+
+
+    // runs on a lane thread, where nothing else would report a failed write
+    private void settleLate(List<NotificationOutbox> group, String token, RuntimeException failure) {
+        try {
+            settle(group, token, failure);
+        } catch (RuntimeException e) {
+            log.error("Could not record the outcome of outbox notification {}", group.get(0).getId(), e);
+        }
+    }
+
+
+    private void markSent(List<Long> ids, String token) {
+        int updated = outboxRepository.markSent(ids, token, LocalDateTime.now());
+        if (updated < ids.size()) {
+            log.warn("{} of {} sent outbox notifications were claimed again after their lease ran out",
+                    ids.size() - updated, ids.size());
+        }
+    }
+
+
+    private void reschedule(NotificationOutbox row, String token, RuntimeException e) {
+        boolean exhausted = row.getAttempts() >= maxAttempts;
+        long backoffMs = retryBackoffMs << Math.min(row.getAttempts() - 1, 16);
+
+        int updated = outboxRepository.reschedule(row.getId(), token,
+                exhausted ? OutboxStatus.FAILED : OutboxStatus.PENDING,
+                LocalDateTime.now().plus(backoffMs, ChronoUnit.MILLIS), truncate(e.getMessage()));
+        if (updated == 0) {
+            log.warn("Outbox notification {} failed after its lease ran out; left to its new claim", row.getId());
+        } else if (exhausted) {
+            log.error("Giving up on outbox notification {} after {} attempts", row.getId(), row.getAttempts(), e);
+        } else {
+            log.warn("Outbox notification {} failed (attempt {}), retrying in {} ms", row.getId(), row.getAttempts(), backoffMs);
+        }
+    }
+
+
+    // hands the rows back without counting the claim as an attempt
+    private void postpone(List<Long> ids, String token) {
+        outboxRepository.postpone(ids, token, LocalDateTime.now().plus(retryBackoffMs, ChronoUnit.MILLIS));
+        log.debug("Outbox notifications {} postponed, their channel is saturated", ids);
+    }
+
+
+    private NotificationDTO toDTO(NotificationOutbox row) {
+        return NotificationDTO.builder()
+                .recipient(row.getRecipient())
+                .subject(row.getSubject())
+                .templateName(row.getTemplateName())
+                .templateVariables(variablesCodec.read(row.getTemplateVariables()))
+                .body(row.getBody())
+                .isHtml(row.getBody() != null)
+                .build();
+    }
+
+
+    private NotificationDTO toDigest(List<NotificationOutbox> group) {
+        NotificationOutbox first = group.get(0);
+        List<Map<String, Object>> alerts = group.stream()
+                .map(row -> variablesCodec.read(row.getTemplateVariables()))
+                .toList();
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", alerts.get(0).get("name"));
+        variables.put("title", first.getSubject());
+        variables.put("count", group.size());
+        variables.put("alerts", alerts);
+
+        return NotificationDTO.builder()
+                .recipient(first.getRecipient())
+                .subject(first.getSubject() + " (" + group.size() + ")")
+                .templateName("alert-digest")
+                .templateVariables(variables)
+                .build();
+    }
+
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+}
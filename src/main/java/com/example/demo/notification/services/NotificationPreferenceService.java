@@ -0,0 +1,12 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.notification.dtos.NotificationPreferenceDTO;
+import com.example.demo.res.Response;
+
+public interface NotificationPreferenceService {
+
+    Response<NotificationPreferenceDTO> getMyPreferences();
+
+    Response<NotificationPreferenceDTO> updateMyPreferences(NotificationPreferenceDTO preferenceDTO);
+
+}
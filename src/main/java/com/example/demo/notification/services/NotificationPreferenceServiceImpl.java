@@ -0,0 +1,78 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.notification.dtos.NotificationPreferenceDTO;
+import com.example.demo.notification.entity.NotificationPreference;
+import com.example.demo.notification.repo.NotificationPreferenceRepository;
+import com.example.demo.res.Response;
+import com.example.demo.security.CurrentUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class NotificationPreferenceServiceImpl implements NotificationPreferenceService {
+
+    private final NotificationPreferenceRepository preferenceRepository;
+    private final UserRepo userRepository;
+    private final CurrentUser currentUser;
+
+    @Override
+    public Response<NotificationPreferenceDTO> getMyPreferences() {
+        Long userId = currentUser.getId();
+
+        // no row yet means the defaults: one email per alert
+        NotificationPreference preference = preferenceRepository.findByUser_Id(userId)
+                .orElseGet(() -> NotificationPreference.builder().build());
+
+        return Response.<NotificationPreferenceDTO>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Notification preferences retrieved")
+                .data(toDTO(preference))
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public Response<NotificationPreferenceDTO> updateMyPreferences(NotificationPreferenceDTO preferenceDTO) {
+        Long userId = currentUser.getId();
+
+        NotificationPreference preference = preferenceRepository.findByUser_Id(userId)
+                .orElseGet(() -> NotificationPreference.builder().user(userRepository.getReferenceById(userId)).build());
+
+        if (preferenceDTO.getDigestEnabled() != null) {
+            preference.setDigestEnabled(preferenceDTO.getDigestEnabled());
+        }
+        if (preferenceDTO.getEmailEnabled() != null) {
+            preference.setEmailEnabled(preferenceDTO.getEmailEnabled());
+        }
+        if (preferenceDTO.getSmsEnabled() != null) {
+            preference.setSmsEnabled(preferenceDTO.getSmsEnabled());
+        }
+        if (preferenceDTO.getPushEnabled() != null) {
+            preference.setPushEnabled(preferenceDTO.getPushEnabled());
+        }
+        preference.setUpdatedAt(LocalDateTime.now());
+        preferenceRepository.save(preference);
+
+        return Response.<NotificationPreferenceDTO>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Notification preferences updated")
+                .data(toDTO(preference))
+                .build();
+    }
+
+
+    private NotificationPreferenceDTO toDTO(NotificationPreference preference) {
+        return NotificationPreferenceDTO.builder()
+                .digestEnabled(preference.isDigestEnabled())
+                .emailEnabled(preference.isEmailEnabled())
+                .smsEnabled(preference.isSmsEnabled())
+                .pushEnabled(preference.isPushEnabled())
+                .build();
+    }
+}
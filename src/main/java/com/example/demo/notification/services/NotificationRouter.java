@@ -0,0 +1,273 @@
+package com.example.demo.notification.services;
+
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.enums.NotificationOverflowPolicy;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.exceptions.ServiceUnavailableException;
+import com.example.demo.notification.channel.NotificationChannel;
+import com.example.demo.notification.dtos.NotificationDTO;
+import com.example.demo.notification.dtos.OutgoingNotification;
+import com.example.demo.notification.entity.NotificationDeadLetter;
+import com.example.demo.notification.entity.NotificationPreference;
+import com.example.demo.notification.repo.NotificationDeadLetterRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends notifications to the channels a user enabled. Every NotificationChannel bean gets
+ * its own lane (worker pool, bounded queue, token bucket, batch size) configured under
+ * notification.channel.&lt;type&gt;.*, so a slow channel cannot back up the others.
+ * <p>
+ * When a lane's queue is full the overflow policy decides: run on the caller's thread,
+ * spill to the outbox table, or drop and count it. Failed deliveries are retried with
+ * exponential backoff and dead-lettered after the last attempt. On shutdown, queued and
+ * waiting deliveries are spilled to the outbox.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRouter {
+
+    private final List<NotificationChannel> channels;
+    private final NotificationDeadLetterRepository deadLetterRepository;
+    private final ObjectProvider<NotificationOutboxService> outboxService;
+    private final TemplateVariablesCodec variablesCodec;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+
+    @Value("${notification.router.overflow-policy}")
+    private NotificationOverflowPolicy overflowPolicy;
+
+    @Value("${notification.router.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${notification.router.retry-backoff-ms}")
+    private long retryBackoffMs;
+
+    private final Map<NotificationType, ChannelLane> lanes = new EnumMap<>(NotificationType.class);
+    private final Map<NotificationType, Counter> overflowCounters = new EnumMap<>(NotificationType.class);
+    private final Map<NotificationType, Counter> deadLetterCounters = new EnumMap<>(NotificationType.class);
+    private final Set<ChannelDelivery> waitingForRetry = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService retryScheduler;
+    private volatile boolean stopping;
+
+    @PostConstruct
+    private void start() {
+        for (NotificationChannel channel : channels) {
+            NotificationType type = channel.type();
+            String prefix = "notification.channel." + type.name().toLowerCase() + ".";
+
+            ChannelLane lane = new ChannelLane(channel,
+                    environment.getRequiredProperty(prefix + "threads", Integer.class),
+                    environment.getRequiredProperty(prefix + "queue-capacity", Integer.class),
+                    environment.getRequiredProperty(prefix + "rate-per-second", Double.class),
+                    environment.getRequiredProperty(prefix + "batch-size", Integer.class),
+                    this::onFailure, meterRegistry);
+            lanes.put(type, lane);
+
+            overflowCounters.put(type, Counter.builder("notification.channel.overflow")
+                    .description("Notifications that found the channel queue full")
+                    .tags("channel", type.name(), "policy", overflowPolicy.name())
+                    .register(meterRegistry));
+            deadLetterCounters.put(type, Counter.builder("notification.dead_letters")
+                    .description("Notifications given up on after the last retry")
+                    .tag("channel", type.name())
+                    .register(meterRegistry));
+            lane.start();
+        }
+
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(task -> new Thread(task, "notification-retry"));
+        meterRegistry.gauge("notification.router.retry_pending", waitingForRetry, Set::size);
+    }
+
+    @PreDestroy
+    private void stop() throws InterruptedException {
+        stopping = true;
+        retryScheduler.shutdownNow();
+        for (ChannelLane lane : lanes.values()) {
+            for (ChannelDelivery leftover : lane.stop(TimeUnit.SECONDS.toMillis(10))) {
+                if (leftover.result != null) {
+                    leftover.result.completeExceptionally(new ServiceUnavailableException("Notification router is shutting down"));
+                } else {
+                    spill(leftover);
+                }
+            }
+        }
+        for (ChannelDelivery delivery : waitingForRetry) {
+            spill(delivery);
+        }
+        waitingForRetry.clear();
+    }
+
+
+    public void routeTo(Set<NotificationType> channelTypes, NotificationDTO notificationDTO, User user) {
+        OutgoingNotification item = new OutgoingNotification(notificationDTO, user);
+        for (NotificationType type : channelTypes) {
+            submit(new ChannelDelivery(type, item, 1, null));
+        }
+    }
+
+    /**
+     * Queues one delivery whose outcome the caller handles; no retries, no overflow policy.
+     * The future fails with ServiceUnavailableException when the channel's queue is full or
+     * the router is stopping; the notification was then never handed to the channel.
+     */
+    public CompletableFuture<Void> deliver(NotificationType channelType, OutgoingNotification item) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        submit(new ChannelDelivery(channelType, item, 1, result));
+        return result;
+    }
+
+    // no preference row yet means the defaults: email only
+    public Set<NotificationType> channelsFor(NotificationPreference preference) {
+        if (preference == null) {
+            return EnumSet.of(NotificationType.EMAIL);
+        }
+        Set<NotificationType> enabled = EnumSet.noneOf(NotificationType.class);
+        if (preference.isEmailEnabled()) {
+            enabled.add(NotificationType.EMAIL);
+        }
+        if (preference.isSmsEnabled()) {
+            enabled.add(NotificationType.SMS);
+        }
+        if (preference.isPushEnabled()) {
+            enabled.add(NotificationType.PUSH);
+        }
+        return enabled;
+    }
+
+
+    private void submit(ChannelDelivery delivery) {
+        ChannelLane lane = lanes.get(delivery.channel);
+        if (lane == null) {
+            onFailure(delivery, new IllegalStateException("No notification channel for " + delivery.channel));
+            return;
+        }
+        if (!lane.offer(delivery)) {
+            overflow(lane, delivery);
+        }
+    }
+
+
+    private void overflow(ChannelLane lane, ChannelDelivery delivery) {
+        overflowCounters.get(delivery.channel).increment();
+        if (delivery.result != null) {
+            delivery.result.completeExceptionally(
+                    new ServiceUnavailableException("Notification channel " + delivery.channel + " is saturated"));
+            return;
+        }
+        if (stopping) {
+            spill(delivery);
+            return;
+        }
+        switch (overflowPolicy) {
+            case CALLER_RUNS -> lane.sendNow(delivery);
+            case SPILL -> spill(delivery);
+            case DROP -> log.warn("{} queue full, dropping notification to {}", delivery.channel,
+                    delivery.item.notification().getRecipient());
+        }
+    }
+
+
+    private void onFailure(ChannelDelivery delivery, RuntimeException failure) {
+        if (delivery.result != null) {
+            delivery.result.completeExceptionally(failure);
+            return;
+        }
+        if (delivery.attempt >= maxAttempts) {
+            deadLetter(delivery, failure);
+            return;
+        }
+
+        long backoffMs = retryBackoffMs << Math.min(delivery.attempt - 1, 16);
+        ChannelDelivery next = delivery.nextAttempt();
+        log.warn("{} notification to {} failed (attempt {}), retrying in {} ms: {}", delivery.channel,
+                delivery.item.notification().getRecipient(), delivery.attempt, backoffMs, failure.getMessage());
+
+        waitingForRetry.add(next);
+        try {
+            retryScheduler.schedule(() -> {
+                if (waitingForRetry.remove(next)) {
+                    submit(next);
+                }
+            }, backoffMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down: stop() spills whatever is still waiting
+            log.debug("Retry scheduler stopped, notification to {} left for the outbox",
+                    delivery.item.notification().getRecipient());
+        }
+    }
+
+
+    private void deadLetter(ChannelDelivery delivery, RuntimeException failure) {
+        Counter counter = deadLetterCounters.get(delivery.channel);
+        if (counter != null) {
+            counter.increment();
+        }
+        NotificationDTO notification = delivery.item.notification();
+        log.error("Giving up on {} notification to {} after {} attempts", delivery.channel,
+                notification.getRecipient(), delivery.attempt, failure);
+
+        String error = failure.getMessage();
+        try {
+            deadLetterRepository.save(NotificationDeadLetter.builder()
+                    .channel(delivery.channel)
+                    .recipient(notification.getRecipient())
+                    .subject(notification.getSubject())
+                    .templateName(notification.getTemplateName())
+                    .templateVariables(variablesCodec.write(notification.getTemplateVariables()))
+                    .body(notification.getBody())
+                    .user(delivery.item.user())
+                    .attempts(delivery.attempt)
+                    .lastError(error == null || error.length() <= 500 ? error : error.substring(0, 500))
+                    .failedAt(LocalDateTime.now())
+                    .build());
+        } catch (RuntimeException e) {
+            log.error("Failed to store dead letter for {}", notification.getRecipient(), e);
+        }
+    }
+
+
+    // the outbox relay picks spilled notifications up and retries them on its own schedule
+    private void spill(ChannelDelivery delivery) {
+        NotificationDTO notification = delivery.item.notification();
+        NotificationDTO forChannel = NotificationDTO.builder()
+                .recipient(notification.getRecipient())
+                .subject(notification.getSubject())
+                .body(notification.getBody())
+                .isHtml(notification.isHtml())
+                .templateName(notification.getTemplateName())
+                .templateVariables(notification.getTemplateVariables())
+                .type(delivery.channel)
+                .build();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxService.getObject().enqueue(forChannel, delivery.item.user()));
+        } catch (RuntimeException e) {
+            log.error("Failed to spill notification to {} into the outbox", notification.getRecipient(), e);
+        }
+    }
+}
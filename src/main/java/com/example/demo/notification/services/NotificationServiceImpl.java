@@ -3,70 +3,20 @@ package com.example.demo.notification.services;
 import com.example.demo.auth_users.entity.User;
 import com.example.demo.enums.NotificationType;
 import com.example.demo.notification.dtos.NotificationDTO;
-import com.example.demo.notification.entity.Notification;
-import com.example.demo.notification.repo.NotificationRepository;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
-import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
 
 @Service
 @RequiredArgsConstructor
-@Slf4j
 public class NotificationServiceImpl implements NotificationService {
 
-    private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
-    private final NotificationRepository notificationRepository;
+    private final NotificationRouter notificationRouter;
 
+    // account emails (welcome, password reset, ...) always go by email, whatever the channel preferences
     @Override
-    @Async
     public void sendEmail(NotificationDTO notificationDTO, User user) {
-
-        try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-
-            MimeMessageHelper helper = new MimeMessageHelper(
-                    mimeMessage,
-                    MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
-                    StandardCharsets.UTF_8.name()
-            );
-
-            helper.setTo(notificationDTO.getRecipient());
-            helper.setSubject(notificationDTO.getSubject());
-
-            // Use template if provided
-            if (notificationDTO.getTemplateName() != null) {
-                Context context = new Context();
-                context.setVariables(notificationDTO.getTemplateVariables());
-                String htmlContent = templateEngine.process(notificationDTO.getTemplateName(), context);
-                helper.setText(htmlContent, true);
-            } else {
-                helper.setText(notificationDTO.getBody(), true);
-            }
-
-            mailSender.send(mimeMessage);
-
-            // Save to database
-            Notification notificationToSave = Notification.builder()
-                    .recipient(notificationDTO.getRecipient())
-                    .subject(notificationDTO.getSubject())
-                    .body(notificationDTO.getBody())
-                    .type(NotificationType.EMAIL)
-                    .user(user)
-                    .build();
-            notificationRepository.save(notificationToSave);
-
-        } catch (MessagingException e) {
-            log.error("Failed to send email", e);
-        }
+        notificationRouter.routeTo(EnumSet.of(NotificationType.EMAIL), notificationDTO, user);
     }
 }
@@ -0,0 +1,261 @@
+package com.example.demo.notification.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps authenticated SMTP connections open between sends, so the TCP + STARTTLS + AUTH
+ * handshake is paid once per connection instead of once per message. Connections idle
+ * for longer than idle-timeout-ms are closed, connections that fail mid-send are replaced,
+ * and a connection is retired after max-messages-per-connection (servers cap it).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SmtpConnectionPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.smtp.pool.max-connections}")
+    private int maxConnections;
+
+    @Value("${notification.smtp.pool.idle-timeout-ms}")
+    private long idleTimeoutMs;
+
+    @Value("${notification.smtp.pool.borrow-timeout-ms}")
+    private long borrowTimeoutMs;
+
+    @Value("${notification.smtp.pool.max-messages-per-connection}")
+    private int maxMessagesPerConnection;
+
+    // most recently used first, so a quiet period lets the tail go idle and be closed
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private Semaphore permits;
+    private Counter connectCounter;
+
+    private static final class PooledConnection {
+        private final Transport transport;
+        private long lastUsedAt = System.currentTimeMillis();
+        private int messagesSent;
+
+        private PooledConnection(Transport transport) {
+            this.transport = transport;
+        }
+    }
+
+    @PostConstruct
+    private void init() {
+        permits = new Semaphore(maxConnections);
+        connectCounter = Counter.builder("notification.smtp.connects")
+                .description("SMTP connections opened (one handshake each)")
+                .register(meterRegistry);
+        meterRegistry.gauge("notification.smtp.pool.idle", idle, LinkedBlockingDeque::size);
+        meterRegistry.gauge("notification.smtp.pool.in_use", this, pool -> maxConnections - pool.permits.availablePermits());
+    }
+
+    @PreDestroy
+    private void closeAll() {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+
+    public void send(MimeMessage message) {
+        MailException failure = sendAll(List.of(message)).get(0);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Sends the messages over one pooled connection, switching to a fresh one whenever the
+     * current one reaches max-messages-per-connection. The result has one entry per message:
+     * null when it was sent, otherwise the failure. A broken connection is replaced and the
+     * message retried once on the new one.
+     */
+    public List<MailException> sendAll(List<MimeMessage> messages) {
+        List<MailException> results = new ArrayList<>(messages.size());
+        PooledConnection connection = null;
+        try {
+            for (MimeMessage message : messages) {
+                // a message that cannot be prepared says nothing about the connection
+                Address[] recipients;
+                try {
+                    recipients = prepare(message);
+                } catch (MessagingException e) {
+                    results.add(new MailPreparationException("Failed to prepare email", e));
+                    continue;
+                }
+
+                try {
+                    if (connection != null && connection.messagesSent >= maxMessagesPerConnection) {
+                        release(connection);
+                        connection = null;
+                    }
+                    if (connection == null) {
+                        connection = borrow();
+                    }
+                    transmit(connection, message, recipients);
+                    results.add(null);
+                } catch (SendFailedException e) {
+                    // rejected recipients; the connection itself is fine
+                    results.add(new MailSendException("Failed to send email", e));
+                } catch (MessagingException e) {
+                    results.add(retryOnFreshConnection(connection, message, recipients, e));
+                    connection = null;
+                } catch (MailException e) {
+                    results.add(e);
+                }
+            }
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+        return results;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.smtp.pool.idle-timeout-ms}")
+    public void closeIdleConnections() {
+        long now = System.currentTimeMillis();
+        PooledConnection oldest;
+        while ((oldest = idle.peekLast()) != null && now - oldest.lastUsedAt > idleTimeoutMs) {
+            if (idle.removeLastOccurrence(oldest)) {
+                close(oldest);
+            }
+        }
+    }
+
+
+    private MailException retryOnFreshConnection(PooledConnection broken, MimeMessage message, Address[] recipients,
+                                                 MessagingException cause) {
+        discard(broken);
+        log.warn("SMTP connection failed, retrying on a new one: {}", cause.getMessage());
+        PooledConnection fresh = null;
+        try {
+            fresh = borrow();
+            transmit(fresh, message, recipients);
+            release(fresh);
+            return null;
+        } catch (MessagingException e) {
+            if (fresh != null) {
+                discard(fresh);
+            }
+            return new MailSendException("Failed to send email", e);
+        } catch (MailException e) {
+            return e;
+        }
+    }
+
+
+    private Address[] prepare(MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        message.saveChanges();
+        return message.getAllRecipients();
+    }
+
+
+    // only what goes over the wire: a MessagingException from here means the connection failed
+    private void transmit(PooledConnection connection, MimeMessage message, Address[] recipients) throws MessagingException {
+        connection.transport.sendMessage(message, recipients);
+        connection.messagesSent++;
+        connection.lastUsedAt = System.currentTimeMillis();
+    }
+
+
+    private PooledConnection borrow() {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new MailSendException("No SMTP connection available within " + borrowTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while waiting for an SMTP connection");
+        }
+
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (connection.transport.isConnected()
+                    && System.currentTimeMillis() - connection.lastUsedAt <= idleTimeoutMs) {
+                return connection;
+            }
+            close(connection);
+        }
+
+        try {
+            return connect();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+
+    private void release(PooledConnection connection) {
+        if (connection.messagesSent >= maxMessagesPerConnection || !connection.transport.isConnected()) {
+            discard(connection);
+            return;
+        }
+        idle.offerFirst(connection);
+        permits.release();
+    }
+
+
+    private void discard(PooledConnection connection) {
+        close(connection);
+        permits.release();
+    }
+
+
+    private PooledConnection connect() {
+        try {
+            Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+            transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+            connectCounter.increment();
+            return new PooledConnection(transport);
+        } catch (AuthenticationFailedException e) {
+            throw new MailAuthenticationException(e);
+        } catch (MessagingException e) {
+            throw new MailSendException("Failed to connect to the SMTP server", e);
+        }
+    }
+
+
+    private void close(PooledConnection connection) {
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection cleanly", e);
+        }
+    }
+}
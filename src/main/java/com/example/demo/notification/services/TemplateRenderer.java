@@ -0,0 +1,92 @@
+package com.example.demo.notification.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Single entry point for rendering email templates. Templates are parsed into the engine's
+ * cache at startup, and each thread reuses one Context and one output buffer, so a render
+ * allocates little more than the resulting String.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateRenderer {
+
+    private static final String TEMPLATE_LOCATION = "classpath:templates/*.html";
+
+    private final TemplateEngine templateEngine;
+
+    // buffers that grew past this (large statements) are dropped instead of kept per thread
+    @Value("${templates.render.max-retained-buffer}")
+    private int maxRetainedBuffer;
+
+    private final ThreadLocal<Context> contexts = ThreadLocal.withInitial(Context::new);
+    private final ThreadLocal<StringWriter> buffers = ThreadLocal.withInitial(() -> new StringWriter(4096));
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Resource[] templates;
+        try {
+            templates = new PathMatchingResourcePatternResolver().getResources(TEMPLATE_LOCATION);
+        } catch (IOException e) {
+            log.warn("Could not list email templates for warm-up", e);
+            return;
+        }
+
+        long start = System.nanoTime();
+        for (Resource template : templates) {
+            String name = template.getFilename().substring(0, template.getFilename().length() - ".html".length());
+            try {
+                // parsing happens before evaluation, so the template is cached even if the empty model fails
+                render(name, Map.of());
+            } catch (RuntimeException e) {
+                log.debug("Template {} parsed, warm-up render with an empty model failed: {}", name, e.getMessage());
+            }
+        }
+        log.info("Warmed up {} email templates in {} ms", templates.length, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public String render(String templateName, Map<String, Object> variables) {
+        StringWriter buffer = buffers.get();
+        buffer.getBuffer().setLength(0);
+        try {
+            render(templateName, variables, buffer);
+            return buffer.toString();
+        } finally {
+            if (buffer.getBuffer().capacity() > maxRetainedBuffer) {
+                buffers.remove();
+            }
+        }
+    }
+
+    /**
+     * Renders straight into the given writer, for callers that stream or keep their own buffer.
+     */
+    public void render(String templateName, Map<String, Object> variables, Writer out) {
+        Context context = contexts.get();
+        context.clearVariables();
+        try {
+            if (variables != null) {
+                context.setVariables(variables);
+            }
+            templateEngine.process(templateName, context, out);
+        } finally {
+            // the model must not outlive the render on a pooled thread
+            context.clearVariables();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.notification.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores template variables as a JSON object of strings. Values are kept as the text the
+ * templates print, so no type information is needed to read them back.
+ */
+@Component
+@RequiredArgsConstructor
+public class TemplateVariablesCodec {
+
+    private static final TypeReference<Map<String, Object>> VARIABLES_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    public String write(Map<String, Object> variables) {
+        if (variables == null) {
+            return null;
+        }
+        Map<String, String> text = new LinkedHashMap<>();
+        variables.forEach((name, value) -> text.put(name, value == null ? null : String.valueOf(value)));
+        try {
+            return objectMapper.writeValueAsString(text);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize template variables", e);
+        }
+    }
+
+    public Map<String, Object> read(String json) {
+        if (json == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, VARIABLES_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read template variables", e);
+        }
+    }
+}
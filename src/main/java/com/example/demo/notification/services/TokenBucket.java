@@ -0,0 +1,44 @@
+package com.example.demo.notification.services;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token bucket refilled continuously at a fixed rate, holding at most one second worth of
+ * tokens. acquire reserves first and then waits out any deficit, so concurrent callers
+ * are spaced out instead of waking up together. A rate of zero or less disables limiting.
+ */
+final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double available;
+    private long refilledAt;
+
+    TokenBucket(double ratePerSecond) {
+        this.tokensPerNano = ratePerSecond / 1_000_000_000.0;
+        this.capacity = Math.max(ratePerSecond, 1);
+        this.available = capacity;
+        this.refilledAt = System.nanoTime();
+    }
+
+    void acquire(int permits) {
+        if (tokensPerNano <= 0) {
+            return;
+        }
+
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            available = Math.min(capacity, available + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            available -= permits;
+            waitNanos = available >= 0 ? 0 : (long) (-available / tokensPerNano);
+        }
+
+        long deadline = System.nanoTime() + waitNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.role.service;
+
+import com.example.demo.config.TransactionCallbacks;
+import com.example.demo.role.entity.Role;
+import com.example.demo.role.repo.RoleRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through cache of roles by name. Roles are few and rarely change, so any change
+ * simply clears the whole cache.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoleCache {
+
+    private final RoleRepository roleRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${cache.roles.max-size}")
+    private long maxSize;
+
+    @Value("${cache.roles.ttl-ms}")
+    private long ttlMs;
+
+    private Cache<String, Role> rolesByName;
+
+    @PostConstruct
+    private void init() {
+        rolesByName = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, rolesByName, "roles");
+    }
+
+
+    public Optional<Role> findByName(String name) {
+        return Optional.ofNullable(rolesByName.get(name, key -> roleRepository.findByName(key).orElse(null)));
+    }
+
+
+    public void evictAllAfterCommit() {
+        TransactionCallbacks.afterCommit(rolesByName::invalidateAll);
+    }
+}
@@ -1,14 +1,18 @@
 package com.example.demo.role.service;
 
+import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.auth_users.services.UserCache;
 import com.example.demo.exceptions.BadRequestException;
 import com.example.demo.exceptions.NotFoundException;
 import com.example.demo.res.Response;
 import com.example.demo.role.entity.Role;
 import com.example.demo.role.repo.RoleRepository;
+import com.example.demo.security.UserSecurityStateCache;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -19,6 +23,10 @@ public class RoleServiceImpl implements RoleService {
 
     private final RoleRepository roleRepository;
     private final ModelMapper modelMapper;
+    private final UserRepo userRepository;
+    private final UserSecurityStateCache userSecurityStateCache;
+    private final RoleCache roleCache;
+    private final UserCache userCache;
 
     @Override
     public Response<Role> createRole(Role role) {
@@ -28,6 +36,7 @@ public class RoleServiceImpl implements RoleService {
         }
 
         Role savedRole = roleRepository.save(role);
+        roleCache.evictAllAfterCommit();
 
 
         return Response.<Role>builder()
@@ -38,6 +47,7 @@ public class RoleServiceImpl implements RoleService {
     }
 
     @Override
+    @Transactional
     public Response<Role> updateRole(Role roleRequest) {
 
         Role role = roleRepository.findById(roleRequest.getId())
@@ -47,6 +57,13 @@ public class RoleServiceImpl implements RoleService {
 
         Role updatedRole = roleRepository.save(role);
 
+        // issued tokens carry the old role name
+        userRepository.bumpSecurityVersionForRole(role.getId());
+        userSecurityStateCache.evictAllAfterCommit();
+        // cached users carry their roles
+        userCache.evictAllAfterCommit();
+        roleCache.evictAllAfterCommit();
+
         Role updatedRoleDTO = modelMapper.map(updatedRole, Role.class);
 
         return Response.<Role>builder()
@@ -73,12 +90,17 @@ public class RoleServiceImpl implements RoleService {
     }
 
     @Override
+    @Transactional
     public Response<?> deleteRole(Long id) {
 
         if (!roleRepository.existsById(id)) {
             throw new NotFoundException("Role not found with ID: " + id);
         }
 
+        userRepository.bumpSecurityVersionForRole(id);
+        userSecurityStateCache.evictAllAfterCommit();
+        userCache.evictAllAfterCommit();
+        roleCache.evictAllAfterCommit();
         roleRepository.deleteById(id);
 
         return Response.builder()
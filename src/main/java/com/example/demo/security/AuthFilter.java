@@ -1,7 +1,9 @@
 package com.example.demo.security;
 
 
+import com.example.demo.auth_users.entity.User;
 import com.example.demo.exceptions.CustomAuthenticationEntryPoint;
+import com.example.demo.role.entity.Role;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,6 +11,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
@@ -20,6 +23,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 @Slf4j
@@ -30,6 +34,11 @@ public class AuthFilter extends OncePerRequestFilter {
     private final TokenService jwtUtils;
     private final CustomUserDetailsService customUserDetailsService;
     private final CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
+    private final UserSecurityStateCache userSecurityStateCache;
+
+    // false: every request loads the user by the token's email, as before the claims existed
+    @Value("${security.jwt.stateless}")
+    private boolean statelessAuth;
 
 
     @Override
@@ -38,19 +47,17 @@ public class AuthFilter extends OncePerRequestFilter {
         String token = getTokenFromRequest(request);
 
         if (token != null) {
-            String email;
+            UserDetails userDetails;
             try {
-                email = jwtUtils.getUsernameFromToken(token);
+                userDetails = resolveUser(token);
             } catch (Exception ex) {
-                log.error("Exception occured while extracting username from token");
+                log.error("Exception occured while verifying token");
                 AuthenticationException authenticationException = new BadCredentialsException(ex.getMessage());
                 customAuthenticationEntryPoint.commence(request, response, authenticationException);
                 return;
             }
 
-            UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
-
-            if (StringUtils.hasText(email) && jwtUtils.isTokenValid(token, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
@@ -65,6 +72,45 @@ public class AuthFilter extends OncePerRequestFilter {
     }
 
 
+    private UserDetails resolveUser(String token) {
+        VerifiedToken verified = jwtUtils.verify(token);
+
+        // tokens issued before the claims existed take the lookup path below until they expire
+        if (statelessAuth && verified.userId() != null) {
+            if (verified.securityVersion() == null
+                    || !userSecurityStateCache.isCurrent(verified.userId(), verified.securityVersion())) {
+                throw new BadCredentialsException("Token has been revoked");
+            }
+            return fromClaims(verified);
+        }
+
+        String email = verified.subject();
+        if (!StringUtils.hasText(email)) {
+            return null;
+        }
+        UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
+        return email.equals(userDetails.getUsername()) ? userDetails : null;
+    }
+
+
+    // the principal only carries what the token proves; services load the full user when they need it
+    private UserDetails fromClaims(VerifiedToken verified) {
+        List<Role> roles = verified.roles().stream()
+                .map(name -> Role.builder().name(name).build())
+                .toList();
+
+        User user = User.builder()
+                .id(verified.userId())
+                .email(verified.subject())
+                .roles(roles)
+                .active(true)
+                .build();
+        return AuthUser.builder()
+                .user(user)
+                .build();
+    }
+
+
     private String getTokenFromRequest(HttpServletRequest request) {
         String tokenWithBearer = request.getHeader("Authorization");
         if (tokenWithBearer != null && tokenWithBearer.startsWith("Bearer ")) {
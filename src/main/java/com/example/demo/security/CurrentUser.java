@@ -0,0 +1,63 @@
+package com.example.demo.security;
+
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.auth_users.services.UserCache;
+import com.example.demo.exceptions.NotFoundException;
+import com.example.demo.role.entity.Role;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.stream.Collectors;
+
+/**
+ * The authenticated caller of the current request. The id/email/roles view comes straight
+ * from the principal AuthFilter placed in the SecurityContext; the full user is only
+ * loaded (through the user cache) when asked for, and at most once per request.
+ */
+@Component
+@RequestScope
+@RequiredArgsConstructor
+public class CurrentUser {
+
+    private final UserCache userCache;
+
+    private CurrentUserView view;
+    private User user;
+
+
+    public CurrentUserView view() {
+        if (view == null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication == null || !(authentication.getPrincipal() instanceof AuthUser authUser)) {
+                throw new NotFoundException("User is not authenticated");
+            }
+            User principal = authUser.getUser();
+            view = new CurrentUserView(
+                    principal.getId(),
+                    principal.getEmail(),
+                    principal.getRoles().stream().map(Role::getName).collect(Collectors.toSet()));
+        }
+        return view;
+    }
+
+
+    public Long getId() {
+        return view().id();
+    }
+
+
+    /**
+     * The full user: a detached snapshot shared with the cache (accounts not loaded), so load a
+     * managed copy before changing it.
+     */
+    public User get() {
+        if (user == null) {
+            user = userCache.findById(getId())
+                    .orElseThrow(() -> new NotFoundException("User Not Found"));
+        }
+        return user;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.security;
+
+import java.util.Set;
+
+/**
+ * What the verified token says about the caller; enough for ownership and role checks
+ * without loading the user.
+ */
+public record CurrentUserView(Long id, String email, Set<String> roles) {
+
+    public CurrentUserView {
+        roles = Set.copyOf(roles);
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.demo.security;
 
 import com.example.demo.auth_users.entity.User;
-import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.auth_users.services.UserCache;
 import com.example.demo.exceptions.NotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,11 +14,11 @@ import org.springframework.stereotype.Service;
 public class CustomUserDetailsService implements UserDetailsService {
 
 
-    private final UserRepo userRepository;
+    private final UserCache userCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(username)
+        User user = userCache.findByEmail(username)
                 .orElseThrow(() -> new NotFoundException("Email Not Found"));
 
         return AuthUser.builder()
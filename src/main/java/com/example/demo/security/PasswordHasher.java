@@ -0,0 +1,147 @@
+package com.example.demo.security;
+
+import com.example.demo.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt on a small fixed pool sized to the CPU, so a login storm queues here instead
+ * of taking every core away from the other endpoints. Work that cannot be queued, or that
+ * waited longer than queue-timeout-ms before a thread picked it up, is answered with 503;
+ * expired work is dropped without hashing.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    // 0: one thread per available core
+    @Value("${security.password.hash-threads}")
+    private int hashThreads;
+
+    @Value("${security.password.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${security.password.queue-timeout-ms}")
+    private long queueTimeoutMs;
+
+    private ThreadPoolExecutor executor;
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Timer queueWaitTimer;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    private void start() {
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        encodeTimer = Timer.builder("security.password.hash")
+                .tag("operation", "encode")
+                .description("Time spent hashing a password")
+                .register(meterRegistry);
+        matchesTimer = Timer.builder("security.password.hash")
+                .tag("operation", "matches")
+                .description("Time spent hashing a password")
+                .register(meterRegistry);
+        queueWaitTimer = Timer.builder("security.password.queue_wait")
+                .description("Time password work waited for a hashing thread")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("security.password.rejected")
+                .description("Password work turned away with 503")
+                .register(meterRegistry);
+        meterRegistry.gauge("security.password.queue_depth", executor.getQueue(), BlockingQueue::size);
+    }
+
+    @PreDestroy
+    private void stop() {
+        executor.shutdownNow();
+    }
+
+
+    public String encode(String rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+
+    // only reads the cost factor from the hash, so it runs on the caller
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+
+    private <T> T submit(Timer hashTimer, Supplier<T> work) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long waited = System.nanoTime() - enqueuedAt;
+                queueWaitTimer.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs)) {
+                    // too late to be useful: answer 503 without spending CPU on it
+                    throw new RejectedExecutionException("Password work expired in the queue");
+                }
+                return hashTimer.record(work);
+            });
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+
+        try {
+            // queue wait is bounded above; the hash itself takes a fixed, short time
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw busy();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw busy();
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+
+    private ServiceUnavailableException busy() {
+        rejectedCounter.increment();
+        return new ServiceUnavailableException("Too many sign-in requests, please retry shortly");
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.security;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free token bucket: the state is one immutable snapshot swapped with CAS, so
+ * concurrent requests for the same key never block each other.
+ */
+final class RateLimitBucket {
+
+    private record State(double tokens, long updatedAt) {
+    }
+
+    private final AtomicReference<State> state;
+
+    RateLimitBucket(double capacity, long now) {
+        this.state = new AtomicReference<>(new State(capacity, now));
+    }
+
+    /**
+     * Takes one token if available.
+     *
+     * @return 0 when the request may pass, otherwise nanos until the next token
+     */
+    long tryAcquire(double capacity, double tokensPerNano, long now) {
+        while (true) {
+            State current = state.get();
+            // a caller that read the clock before a concurrent one may arrive with an older now;
+            // updatedAt must not move back, or that interval would be refilled twice
+            long at = Math.max(now, current.updatedAt());
+            double refilled = Math.min(capacity, current.tokens() + (at - current.updatedAt()) * tokensPerNano);
+            if (refilled < 1) {
+                return (long) Math.ceil((1 - refilled) / tokensPerNano);
+            }
+            if (state.compareAndSet(current, new State(refilled - 1, at))) {
+                return 0;
+            }
+        }
+    }
+
+    long updatedAt() {
+        return state.get().updatedAt();
+    }
+}
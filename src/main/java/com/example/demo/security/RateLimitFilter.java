@@ -0,0 +1,165 @@
+package com.example.demo.security;
+
+import com.example.demo.res.Response;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles the endpoints that are expensive or abusable: logins and password-reset mails
+ * per client IP, money movements per authenticated user. Runs after AuthFilter so the user
+ * is known. Buckets are created on first use and dropped once idle long enough to be full
+ * again, so evicting one never hands out extra tokens.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+
+    @Value("${rate-limit.enabled}")
+    private boolean enabled;
+
+    // past this many buckets, clients without one are rejected until idle buckets are evicted;
+    // a shared overflow bucket would let a flood of new keys starve unrelated clients, and
+    // evicting a live bucket would hand its client a full one
+    @Value("${rate-limit.max-buckets}")
+    private int maxBuckets;
+
+    private enum KeyType {IP, USER}
+
+    private record Rule(String name, String method, Set<String> paths, KeyType keyType,
+                        double capacity, double tokensPerNano) {
+
+        // nanos an untouched bucket needs to be full again
+        long refillNanos() {
+            return (long) Math.ceil(capacity / tokensPerNano);
+        }
+    }
+
+    private List<Rule> rules;
+    private final Map<String, RateLimitBucket> buckets = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    private void init() {
+        rules = List.of(
+                rule("login", "POST", Set.of("/api/auth/login"), KeyType.IP),
+                rule("forgot-password", "POST", Set.of("/api/auth/forgot-password"), KeyType.IP),
+                rule("transactions", "POST", Set.of("/api/transactions", "/api/transactions/batch"), KeyType.USER));
+        meterRegistry.gaugeMapSize("rate_limit.buckets", Tags.empty(), buckets);
+    }
+
+
+    private Rule rule(String name, String method, Set<String> paths, KeyType keyType) {
+        String prefix = "rate-limit." + name + ".";
+        double capacity = environment.getRequiredProperty(prefix + "capacity", Double.class);
+        double perMinute = environment.getRequiredProperty(prefix + "refill-per-minute", Double.class);
+        return new Rule(name, method, paths, keyType, capacity, perMinute / TimeUnit.MINUTES.toNanos(1));
+    }
+
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        Rule rule = enabled ? match(request) : null;
+        if (rule != null) {
+            long now = System.nanoTime();
+            String key = rule.name() + ":" + clientKey(rule, request);
+            RateLimitBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= maxBuckets) {
+                    // only the new client waits; clients already tracked keep their own buckets
+                    meterRegistry.counter("rate_limit.overflow", "rule", rule.name()).increment();
+                    reject(response, rule.refillNanos());
+                    return;
+                }
+                bucket = buckets.computeIfAbsent(key, k -> new RateLimitBucket(rule.capacity(), now));
+            }
+
+            long waitNanos = bucket.tryAcquire(rule.capacity(), rule.tokensPerNano(), now);
+            if (waitNanos > 0) {
+                meterRegistry.counter("rate_limit.rejected", "rule", rule.name()).increment();
+                reject(response, waitNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        for (Rule rule : rules) {
+            String prefix = rule.name() + ":";
+            long refillNanos = rule.refillNanos();
+            buckets.entrySet().removeIf(entry -> entry.getKey().startsWith(prefix)
+                    && now - entry.getValue().updatedAt() >= refillNanos);
+        }
+    }
+
+
+    private Rule match(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Rule rule : rules) {
+            if (rule.method().equals(request.getMethod()) && rule.paths().contains(path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+
+    // anonymous calls to a per-user route fall back to the client IP
+    private String clientKey(Rule rule, HttpServletRequest request) {
+        if (rule.keyType() == KeyType.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof AuthUser authUser) {
+                return "user:" + authUser.getUser().getId();
+            }
+        }
+        // behind a proxy this relies on server.forward-headers-strategy to report the client
+        return "ip:" + request.getRemoteAddr();
+    }
+
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(waitNanos / 1_000_000_000.0));
+
+        Response<?> errorResponse = Response.builder()
+                .statusCode(HttpStatus.TOO_MANY_REQUESTS.value())
+                .message("Too many requests, retry in " + retryAfterSeconds + " seconds")
+                .build();
+
+        response.setContentType("application/json");
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+    }
+}
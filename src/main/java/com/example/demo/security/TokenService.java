@@ -1,61 +1,123 @@
 package com.example.demo.security;
 
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.role.entity.Role;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.HexFormat;
+import java.util.List;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class TokenService {
 
+    // claims that let AuthFilter build the principal without loading the user
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_SECURITY_VERSION = "sv";
+
+    private final MeterRegistry meterRegistry;
+
     private SecretKey key;
 
+    // built once; the parser is immutable and thread-safe
+    private JwtParser parser;
+
     @Value("${secret.jwt.string}")
     private String secreteJWTString;
 
     @Value("${expiration.token.time}")
     private long EXPIRATION_TIME;
 
+    @Value("${security.jwt.verified-cache.max-entries}")
+    private int verifiedCacheMaxEntries;
+
+    // keyed by the SHA-256 of the token, so raw tokens are never kept in memory. Bounded LRU-ish
+    // (Caffeine's W-TinyLFU), and every entry expires together with its token
+    private Cache<String, VerifiedToken> verifiedTokens;
+
     @PostConstruct
     private void init() {
         byte[] keyByte = secreteJWTString.getBytes(StandardCharsets.UTF_8);
         this.key = new SecretKeySpec(keyByte, "HmacSHA256");
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxEntries)
+                .expireAfter(Expiry.creating((String cacheKey, VerifiedToken verified) ->
+                        Duration.ofMillis(Math.max(verified.expiresAtMillis() - System.currentTimeMillis(), 0))))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt_verified");
     }
 
-    public String generateToken(String email) {
+    public String generateToken(User user) {
         return Jwts.builder()
-                .subject(email)
+                .subject(user.getEmail())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_ROLES, user.getRoles().stream().map(Role::getName).toList())
+                .claim(CLAIM_SECURITY_VERSION, user.getSecurityVersion())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
                 .signWith(key)
                 .compact();
     }
 
-    public String getUsernameFromToken(String token) {
-        return extractClaims(token, Claims::getSubject);
-    }
+    /**
+     * Checks signature and expiry once and returns the claims. A token verified earlier is
+     * served from the cache until it expires. Throws a JwtException when the token is not valid.
+     */
+    public VerifiedToken verify(String token) {
+        String cacheKey = sha256(token);
+        long now = System.currentTimeMillis();
 
-    private <T> T extractClaims(String token, Function<Claims, T> claimsTFunction) {
-        return claimsTFunction.apply(Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload());
-    }
+        VerifiedToken cached = verifiedTokens.getIfPresent(cacheKey);
+        if (cached != null && !cached.isExpired(now)) {
+            return cached;
+        }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        // an expired token fails here with ExpiredJwtException
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        VerifiedToken verified = new VerifiedToken(
+                claims.getSubject(),
+                claims.get(CLAIM_USER_ID, Long.class),
+                roles == null ? null : roles.stream().map(String::valueOf).toList(),
+                claims.get(CLAIM_SECURITY_VERSION, Long.class),
+                claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime());
+
+        verifiedTokens.put(cacheKey, verified);
+        return verified;
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractClaims(token, Claims::getExpiration).before(new Date());
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
     }
 
 }
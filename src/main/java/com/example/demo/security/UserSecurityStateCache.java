@@ -0,0 +1,74 @@
+package com.example.demo.security;
+
+import com.example.demo.auth_users.dtos.UserSecurityState;
+import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.config.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of each user's security version and active flag, so stateless tokens
+ * can be revoked without a DB read per request. Changes made on this instance are seen
+ * right after commit; changes made elsewhere within ttl-ms.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserSecurityStateCache {
+
+    private final UserRepo userRepository;
+
+    @Value("${security.jwt.state-cache.ttl-ms}")
+    private long ttlMs;
+
+    @Value("${security.jwt.state-cache.max-entries}")
+    private int maxEntries;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private record Entry(UserSecurityState state, long expiresAt) {
+    }
+
+
+    /**
+     * True when the user still exists, is active and the token's version is the current one.
+     */
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(userId);
+        if (entry == null || entry.expiresAt() <= now) {
+            UserSecurityState state = userRepository.findSecurityStateById(userId).orElse(null);
+            if (state == null) {
+                entries.remove(userId);
+                return false;
+            }
+            entry = new Entry(state, now + ttlMs);
+            // past the bound, users are simply checked against the DB until the next purge
+            if (entries.size() < maxEntries || entries.containsKey(userId)) {
+                entries.put(userId, entry);
+            }
+        }
+        return entry.state().active() && entry.state().securityVersion() == tokenVersion;
+    }
+
+
+    public void evictAfterCommit(Long userId) {
+        TransactionCallbacks.afterCommit(() -> entries.remove(userId));
+    }
+
+
+    public void evictAllAfterCommit() {
+        TransactionCallbacks.afterCommit(entries::clear);
+    }
+
+
+    @Scheduled(fixedDelayString = "${security.jwt.state-cache.ttl-ms}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.security;
+
+import java.util.List;
+
+/**
+ * Claims of a token whose signature and expiry have been checked. Immutable, so one
+ * instance can be shared by every request presenting the same token.
+ *
+ * @param userId          null for tokens issued before the uid claim existed
+ * @param securityVersion null for the same tokens
+ */
+public record VerifiedToken(
+        String subject,
+        Long userId,
+        List<String> roles,
+        Long securityVersion,
+        long expiresAtMillis
+) {
+
+    public VerifiedToken {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+}
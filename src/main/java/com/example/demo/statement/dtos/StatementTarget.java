@@ -0,0 +1,7 @@
+package com.example.demo.statement.dtos;
+
+/**
+ * The few account and owner columns a statement needs, read without loading the entities.
+ */
+public record StatementTarget(Long accountId, String accountNumber, Long userId, String firstName, String email) {
+}
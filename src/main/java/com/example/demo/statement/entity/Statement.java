@@ -0,0 +1,44 @@
+package com.example.demo.statement.entity;
+
+import com.example.demo.account.entity.Account;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A rendered monthly statement. One per account and period, so an account is never
+ * rendered or mailed twice for the same month.
+ */
+@Entity
+@Table(name = "statements", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_statements_account_period", columnNames = {"account_id", "period"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Statement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "statements_seq")
+    @SequenceGenerator(name = "statements_seq", sequenceName = "statements_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    @ToString.Exclude
+    private Account account;
+
+    // yyyy-MM
+    @Column(nullable = false, length = 7)
+    private String period;
+
+    @Lob
+    @Column(nullable = false)
+    @ToString.Exclude
+    private String html;
+
+    private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,42 @@
+package com.example.demo.statement.entity;
+
+import com.example.demo.account.entity.Account;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An account whose statement for the period could not be rendered. Stored with the chunk
+ * it belongs to, so the run moves on and the account can be looked at afterwards.
+ */
+@Entity
+@Table(name = "statement_failures", indexes = {
+        @Index(name = "idx_statement_failures_period", columnList = "period")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementFailure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "statement_failures_seq")
+    @SequenceGenerator(name = "statement_failures_seq", sequenceName = "statement_failures_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    @ToString.Exclude
+    private Account account;
+
+    // yyyy-MM
+    @Column(nullable = false, length = 7)
+    private String period;
+
+    @Column(length = 500)
+    private String error;
+
+    private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,55 @@
+package com.example.demo.statement.entity;
+
+import com.example.demo.enums.StatementRunStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the statement run for one period. lastAccountId is advanced in the same
+ * DB transaction that stores a chunk's statements and queues their emails, so a restarted
+ * run continues after it. Only the instance holding the lease works on the run.
+ */
+@Entity
+@Table(name = "statement_runs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 7)
+    private String period;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatementRunStatus status;
+
+    @Column(nullable = false)
+    private Long lastAccountId;
+
+    private long processedAccounts;
+
+    // accounts whose statement could not be rendered, each recorded as a StatementFailure
+    private long failedAccounts;
+
+    // the instance working on the run; it renews the lease with every chunk, and once the lease
+    // runs out (the instance died) another one may take the run over
+    @Column(length = 36)
+    private String ownerToken;
+
+    private LocalDateTime leaseExpiresAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+}
@@ -0,0 +1,12 @@
+package com.example.demo.statement.repo;
+
+import com.example.demo.statement.entity.StatementFailure;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface StatementFailureRepo extends JpaRepository<StatementFailure, Long> {
+
+    List<StatementFailure> findByPeriod(String period);
+
+}
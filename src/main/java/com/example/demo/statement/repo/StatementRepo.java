@@ -0,0 +1,27 @@
+package com.example.demo.statement.repo;
+
+import com.example.demo.enums.AccountStatus;
+import com.example.demo.statement.dtos.StatementTarget;
+import com.example.demo.statement.entity.Statement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface StatementRepo extends JpaRepository<Statement, Long> {
+
+    // next chunk of accounts in id order, as a projection so neither users nor their roles get loaded
+    @Query("SELECT new com.example.demo.statement.dtos.StatementTarget(a.id, a.accountNumber, u.id, u.firstName, u.email) " +
+            "FROM Account a JOIN a.user u WHERE a.status = :status AND a.id > :afterId ORDER BY a.id")
+    List<StatementTarget> findStatementTargets(@Param("status") AccountStatus status,
+                                               @Param("afterId") Long afterId,
+                                               Pageable pageable);
+
+    @Query("SELECT s.account.id FROM Statement s WHERE s.account.id IN :accountIds AND s.period = :period")
+    List<Long> findAccountIdsWithStatement(@Param("accountIds") Collection<Long> accountIds,
+                                           @Param("period") String period);
+
+}
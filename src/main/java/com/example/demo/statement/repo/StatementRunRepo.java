@@ -0,0 +1,68 @@
+package com.example.demo.statement.repo;
+
+import com.example.demo.enums.StatementRunStatus;
+import com.example.demo.statement.entity.StatementRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface StatementRunRepo extends JpaRepository<StatementRun, Long> {
+
+    Optional<StatementRun> findByPeriod(String period);
+
+    List<StatementRun> findByStatus(StatementRunStatus status);
+
+    // INSERT IGNORE returns 0 when another instance created the run first
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO statement_runs (period, status, last_account_id, processed_accounts, " +
+            "failed_accounts, started_at) VALUES (:period, 'RUNNING', 0, 0, 0, :startedAt)", nativeQuery = true)
+    int insertIfAbsent(@Param("period") String period, @Param("startedAt") LocalDateTime startedAt);
+
+    // a RUNNING run nobody holds, or whose holder stopped renewing the lease, changes hands
+    @Modifying
+    @Transactional
+    @Query("UPDATE StatementRun r SET r.ownerToken = :ownerToken, r.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE r.period = :period AND r.status = com.example.demo.enums.StatementRunStatus.RUNNING " +
+            "AND (r.leaseExpiresAt IS NULL OR r.leaseExpiresAt < :now)")
+    int acquireLease(@Param("period") String period,
+                     @Param("ownerToken") String ownerToken,
+                     @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt,
+                     @Param("now") LocalDateTime now);
+
+    // joins the chunk's transaction and renews the lease; 0 rows means the run was taken over
+    // and the chunk has to roll back
+    @Modifying
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query("UPDATE StatementRun r SET r.lastAccountId = :lastAccountId, r.processedAccounts = :processedAccounts, " +
+            "r.failedAccounts = :failedAccounts, r.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE r.id = :id AND r.ownerToken = :ownerToken")
+    int advance(@Param("id") Long id,
+                @Param("ownerToken") String ownerToken,
+                @Param("lastAccountId") Long lastAccountId,
+                @Param("processedAccounts") long processedAccounts,
+                @Param("failedAccounts") long failedAccounts,
+                @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StatementRun r SET r.status = com.example.demo.enums.StatementRunStatus.COMPLETED, " +
+            "r.finishedAt = :finishedAt, r.ownerToken = null, r.leaseExpiresAt = null " +
+            "WHERE r.id = :id AND r.ownerToken = :ownerToken")
+    int complete(@Param("id") Long id, @Param("ownerToken") String ownerToken, @Param("finishedAt") LocalDateTime finishedAt);
+
+    // lets another instance resume right away instead of waiting for the lease to run out
+    @Modifying
+    @Transactional
+    @Query("UPDATE StatementRun r SET r.ownerToken = null, r.leaseExpiresAt = null " +
+            "WHERE r.id = :id AND r.ownerToken = :ownerToken")
+    int release(@Param("id") Long id, @Param("ownerToken") String ownerToken);
+
+}
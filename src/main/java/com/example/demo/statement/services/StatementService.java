@@ -0,0 +1,26 @@
+package com.example.demo.statement.services;
+
+import com.example.demo.statement.entity.StatementRun;
+
+import java.time.YearMonth;
+
+public interface StatementService {
+
+    /**
+     * Renders, stores and emails the statements of every active account for the period.
+     * Continues where a previous run for the same period stopped, and returns the run
+     * untouched while another instance is working on it.
+     */
+    StatementRun generateStatements(YearMonth period);
+
+    /**
+     * Scheduled entry point: generates last month's statements.
+     */
+    void generatePreviousMonth();
+
+    /**
+     * Continues every run left RUNNING by a crash or redeploy.
+     */
+    void resumeUnfinishedRuns();
+
+}
@@ -0,0 +1,330 @@
+package com.example.demo.statement.services;
+
+import com.example.demo.account.repo.AccountRepo;
+import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.enums.AccountStatus;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.StatementRunStatus;
+import com.example.demo.ledger.services.LedgerService;
+import com.example.demo.notification.dtos.NotificationDTO;
+import com.example.demo.notification.services.NotificationOutboxService;
+import com.example.demo.notification.services.TemplateRenderer;
+import com.example.demo.statement.dtos.StatementTarget;
+import com.example.demo.statement.entity.Statement;
+import com.example.demo.statement.entity.StatementFailure;
+import com.example.demo.statement.entity.StatementRun;
+import com.example.demo.statement.repo.StatementFailureRepo;
+import com.example.demo.statement.repo.StatementRepo;
+import com.example.demo.statement.repo.StatementRunRepo;
+import com.example.demo.transaction.dtos.TransactionDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Monthly statements in chunks of active accounts, walked in id order. Per chunk: one
+ * query for the accounts, one ledger range query for all their postings, parallel
+ * rendering on a bounded pool, then one DB transaction for the statements, their emails
+ * (as outbox rows), the accounts that failed to render and the run's progress.
+ * <p>
+ * A run is worked on by one instance at a time: the one holding the lease on its
+ * StatementRun row, renewed by every chunk.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatementServiceImpl implements StatementService {
+
+    private static final DateTimeFormatter PERIOD_LABEL = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.ENGLISH);
+
+    private final StatementRepo statementRepo;
+    private final StatementRunRepo statementRunRepo;
+    private final StatementFailureRepo statementFailureRepo;
+    private final AccountRepo accountRepo;
+    private final UserRepo userRepo;
+    private final LedgerService ledgerService;
+    private final NotificationOutboxService notificationOutboxService;
+    private final TemplateRenderer templateRenderer;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${statement.chunk-size}")
+    private int chunkSize;
+
+    @Value("${statement.render-threads}")
+    private int renderThreads;
+
+    @Value("${statement.render-queue-capacity}")
+    private int renderQueueCapacity;
+
+    // has to outlast the slowest chunk, every chunk renews it
+    @Value("${statement.lease-ms}")
+    private long leaseMs;
+
+    private ThreadPoolExecutor renderPool;
+    private Counter generatedCounter;
+    private Counter failedCounter;
+
+    // html is null when rendering failed with error
+    private record RenderedStatement(StatementTarget target, String html, Throwable error) {
+    }
+
+    @PostConstruct
+    private void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // a full queue makes the run thread render itself, which throttles the producer
+        renderPool = new ThreadPoolExecutor(renderThreads, renderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(renderQueueCapacity),
+                task -> new Thread(task, "statement-render-" + threadIndex.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        generatedCounter = Counter.builder("statement.generated")
+                .description("Statements rendered and stored")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("statement.failed")
+                .description("Statements that could not be rendered")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        renderPool.shutdown();
+    }
+
+
+    @Override
+    @Scheduled(cron = "${statement.cron}")
+    public void generatePreviousMonth() {
+        generateStatements(YearMonth.now().minusMonths(1));
+    }
+
+    // a run interrupted by a crash or redeploy continues after its last committed chunk
+    @Override
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedRuns() {
+        for (StatementRun run : statementRunRepo.findByStatus(StatementRunStatus.RUNNING)) {
+            log.info("Resuming statement run for {} after account id {}", run.getPeriod(), run.getLastAccountId());
+            generateStatements(YearMonth.parse(run.getPeriod()));
+        }
+    }
+
+
+    @Override
+    public StatementRun generateStatements(YearMonth period) {
+        statementRunRepo.insertIfAbsent(period.toString(), LocalDateTime.now());
+
+        String ownerToken = UUID.randomUUID().toString();
+        if (statementRunRepo.acquireLease(period.toString(), ownerToken, leaseUntil(), LocalDateTime.now()) == 0) {
+            StatementRun run = statementRunRepo.findByPeriod(period.toString()).orElseThrow();
+            if (run.getStatus() == StatementRunStatus.COMPLETED) {
+                log.info("Statements for {} were already generated", period);
+            } else {
+                log.info("Statements for {} are being generated by another instance", period);
+            }
+            return run;
+        }
+
+        StatementRun run = statementRunRepo.findByPeriod(period.toString()).orElseThrow();
+        try {
+            return runChunks(run, ownerToken, period);
+        } catch (RuntimeException e) {
+            statementRunRepo.release(run.getId(), ownerToken);
+            throw e;
+        }
+    }
+
+
+    private StatementRun runChunks(StatementRun run, String ownerToken, YearMonth period) {
+        LocalDateTime from = period.atDay(1).atStartOfDay();
+        LocalDateTime to = period.plusMonths(1).atDay(1).atStartOfDay();
+        Pageable chunk = PageRequest.of(0, chunkSize);
+
+        long startedAt = System.nanoTime();
+        long processed = 0;
+
+        List<StatementTarget> targets;
+        while (!(targets = statementRepo.findStatementTargets(AccountStatus.ACTIVE, run.getLastAccountId(), chunk)).isEmpty()) {
+            processChunk(run, ownerToken, period, from, to, targets);
+            processed += targets.size();
+
+            double seconds = Math.max((System.nanoTime() - startedAt) / 1_000_000_000.0, 0.001);
+            log.info("Statements {}: {} accounts done, {} accounts/sec", period, run.getProcessedAccounts(),
+                    Math.round(processed / seconds));
+        }
+
+        LocalDateTime finishedAt = LocalDateTime.now();
+        if (statementRunRepo.complete(run.getId(), ownerToken, finishedAt) == 0) {
+            throw new IllegalStateException("Statement run for " + period + " was taken over by another instance");
+        }
+        run.setStatus(StatementRunStatus.COMPLETED);
+        run.setFinishedAt(finishedAt);
+        run.setOwnerToken(null);
+        run.setLeaseExpiresAt(null);
+
+        double seconds = Math.max((System.nanoTime() - startedAt) / 1_000_000_000.0, 0.001);
+        log.info("Statement run for {} completed: {} accounts ({} failed) in {}s ({} accounts/sec)", period,
+                run.getProcessedAccounts(), run.getFailedAccounts(), Math.round(seconds), Math.round(processed / seconds));
+        return run;
+    }
+
+
+    private void processChunk(StatementRun run, String ownerToken, YearMonth period, LocalDateTime from,
+                              LocalDateTime to, List<StatementTarget> targets) {
+        List<Long> accountIds = targets.stream().map(StatementTarget::accountId).toList();
+
+        // statements are unique per account and period; one that exists already (say, a run
+        // restarted by hand after its row was deleted) is neither rendered nor mailed again
+        Set<Long> alreadyDone = new HashSet<>(statementRepo.findAccountIdsWithStatement(accountIds, period.toString()));
+        Map<Long, List<TransactionDTO>> postings = ledgerService.getPostingsByAccount(accountIds, from, to);
+
+        List<Future<RenderedStatement>> pending = new ArrayList<>(targets.size());
+        for (StatementTarget target : targets) {
+            if (alreadyDone.contains(target.accountId())) {
+                continue;
+            }
+            List<TransactionDTO> accountPostings = postings.getOrDefault(target.accountId(), List.of());
+            pending.add(renderPool.submit(() -> renderSafely(target, period, accountPostings)));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<RenderedStatement> rendered = new ArrayList<>(pending.size());
+        List<StatementFailure> failures = new ArrayList<>();
+        for (Future<RenderedStatement> future : pending) {
+            RenderedStatement statement = await(future);
+            if (statement.error() == null) {
+                rendered.add(statement);
+                continue;
+            }
+            log.error("Failed to render the {} statement of account {}", period, statement.target().accountId(), statement.error());
+            failures.add(StatementFailure.builder()
+                    .account(accountRepo.getReferenceById(statement.target().accountId()))
+                    .period(period.toString())
+                    .error(truncate(String.valueOf(statement.error())))
+                    .createdAt(now)
+                    .build());
+        }
+
+        List<Statement> statements = rendered.stream()
+                .map(r -> Statement.builder()
+                        .account(accountRepo.getReferenceById(r.target().accountId()))
+                        .period(period.toString())
+                        .html(r.html())
+                        .createdAt(now)
+                        .build())
+                .toList();
+
+        long lastAccountId = accountIds.get(accountIds.size() - 1);
+        long processedAccounts = run.getProcessedAccounts() + targets.size();
+        long failedAccounts = run.getFailedAccounts() + failures.size();
+        String subject = "Your Account Statement for " + period.format(PERIOD_LABEL);
+
+        // the emails are outbox rows of the same transaction: committed with the cursor that
+        // skips these accounts on resume, or rolled back with it
+        transactionTemplate.executeWithoutResult(status -> {
+            statementRepo.saveAll(statements);
+            statementFailureRepo.saveAll(failures);
+            for (RenderedStatement statement : rendered) {
+                queueEmail(statement, subject);
+            }
+            if (statementRunRepo.advance(run.getId(), ownerToken, lastAccountId, processedAccounts, failedAccounts, leaseUntil()) == 0) {
+                throw new IllegalStateException("Statement run for " + period + " was taken over by another instance");
+            }
+        });
+        generatedCounter.increment(statements.size());
+        failedCounter.increment(failures.size());
+
+        run.setLastAccountId(lastAccountId);
+        run.setProcessedAccounts(processedAccounts);
+        run.setFailedAccounts(failedAccounts);
+    }
+
+
+    // a template or data problem of one account must not stop the run
+    private RenderedStatement renderSafely(StatementTarget target, YearMonth period, List<TransactionDTO> postings) {
+        try {
+            return new RenderedStatement(target, render(target, period, postings), null);
+        } catch (RuntimeException e) {
+            return new RenderedStatement(target, null, e);
+        }
+    }
+
+
+    private String render(StatementTarget target, YearMonth period, List<TransactionDTO> postings) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", target.firstName());
+        variables.put("accountNumber", target.accountNumber());
+        variables.put("period", period.format(PERIOD_LABEL));
+        variables.put("transactions", postings);
+        return templateRenderer.render("statement", variables);
+    }
+
+
+    private void queueEmail(RenderedStatement statement, String subject) {
+        StatementTarget target = statement.target();
+
+        NotificationDTO notificationDTO = NotificationDTO.builder()
+                .recipient(target.email())
+                .subject(subject)
+                .body(statement.html())
+                .isHtml(true)
+                .type(NotificationType.EMAIL)
+                .build();
+
+        // only the id is needed to link the outbox row to its owner
+        notificationOutboxService.enqueue(notificationDTO, userRepo.getReferenceById(target.userId()));
+    }
+
+
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now().plus(leaseMs, ChronoUnit.MILLIS);
+    }
+
+
+    private String truncate(String message) {
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+
+    private RenderedStatement await(Future<RenderedStatement> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Statement run interrupted", e);
+        } catch (ExecutionException e) {
+            // renderSafely catches what rendering throws, so only an Error ends up here
+            throw new IllegalStateException("Failed to render statement", e.getCause());
+        }
+    }
+}
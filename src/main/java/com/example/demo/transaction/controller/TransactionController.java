@@ -1,14 +1,18 @@
 package com.example.demo.transaction.controller;
 
+import com.example.demo.idempotency.services.IdempotencyService;
 import com.example.demo.res.Response;
+import com.example.demo.transaction.dtos.TransactionBatchResult;
 import com.example.demo.transaction.dtos.TransactionRequest;
 import com.example.demo.transaction.dtos.TransactionDTO;
 import com.example.demo.transaction.services.TransactionService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -17,12 +21,26 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
     public ResponseEntity<Response<?>> createTransaction(
-            @Valid @RequestBody TransactionRequest request
+            @Valid @RequestBody TransactionRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
-        return ResponseEntity.ok(transactionService.createTransaction(request));
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(transactionService.createTransaction(request));
+        }
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, request,
+                completeKey -> transactionService.createTransaction(request, completeKey)));
+    }
+
+
+    @PostMapping("/batch")
+    public ResponseEntity<Response<List<TransactionBatchResult>>> createTransactionBatch(
+            HttpServletRequest request
+    ) throws IOException {
+        return ResponseEntity.ok(transactionService.createTransactionBatch(request.getInputStream()));
     }
 
 
@@ -30,8 +48,13 @@ public class TransactionController {
     public ResponseEntity<Response<List<TransactionDTO>>> getTransactionsForMyAccount(
             @PathVariable String accountNumber,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String cursor
     ) {
+        // any cursor parameter (an empty one for the first page) switches to keyset paging
+        if (cursor != null) {
+            return ResponseEntity.ok(transactionService.getTransactionsForMyAccount(accountNumber, cursor, size));
+        }
         return ResponseEntity.ok(transactionService.getTransactionsForMyAccount(accountNumber, page, size));
     }
 
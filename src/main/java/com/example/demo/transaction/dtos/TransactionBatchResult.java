@@ -0,0 +1,28 @@
+package com.example.demo.transaction.dtos;
+
+import com.example.demo.enums.TransactionStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a bulk submission, in the same order as the request array.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionBatchResult {
+
+    private int index;
+
+    private TransactionStatus status;
+
+    private Long transactionId;
+
+    private String message;
+
+}
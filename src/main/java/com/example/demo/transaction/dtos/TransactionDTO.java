@@ -2,6 +2,7 @@ package com.example.demo.transaction.dtos;
 
 
 import com.example.demo.account.dtos.AccountDTO;
+import com.example.demo.enums.LedgerEntryType;
 import com.example.demo.enums.TransactionStatus;
 import com.example.demo.enums.TransactionType;
 import com.fasterxml.jackson.annotation.JsonBackReference;
@@ -35,6 +36,10 @@ public class TransactionDTO {
 
     private TransactionStatus status;
 
+    // set when read from the ledger: which side of the movement this account was on
+    private LedgerEntryType entryType;
+    private BigDecimal balanceAfter;
+
     @JsonBackReference
     private AccountDTO account;
 
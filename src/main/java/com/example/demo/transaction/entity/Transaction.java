@@ -19,8 +19,14 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Transaction {
 
+    /**
+     * Pooled sequence (a table-backed sequence on MySQL) instead of IDENTITY, so Hibernate
+     * knows ids before the INSERT and can send transaction rows in JDBC batches. The table is
+     * created and seeded past the existing ids by db/migration/V3__transactions_seq.sql.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,375 @@
+package com.example.demo.transaction.services;
+
+import com.example.demo.enums.TransactionEngineMode;
+import com.example.demo.exceptions.ServiceUnavailableException;
+import com.example.demo.res.Response;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Group commit for money movements: callers enqueue their work and block, a single writer
+ * thread drains the queue every max-wait-ms or max-batch-size items and applies the whole
+ * batch in one DB transaction, so one commit (and one fsync) is shared by many requests.
+ * <p>
+ * Each item runs behind its own savepoint: an item that fails is rolled back to it and only
+ * that request sees the error. Items that could not get their row locks, and every item of
+ * a batch rolled back before its commit (a deadlock victim), are replayed alone with the same
+ * bounded lock retries as the other engine modes. A batch whose COMMIT fails is not replayed,
+ * since it may have been applied: its callers get a 503 telling them the outcome is unknown.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionGroupCommitWriter {
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final EntityManager entityManager;
+    private final HibernateJpaDialect jpaDialect = new HibernateJpaDialect();
+
+    @Value("${transaction.engine.mode}")
+    private TransactionEngineMode engineMode;
+
+    @Value("${transaction.group-commit.max-batch-size}")
+    private int maxBatchSize;
+
+    @Value("${transaction.group-commit.max-wait-ms}")
+    private long maxWaitMs;
+
+    @Value("${transaction.group-commit.queue-capacity}")
+    private int queueCapacity;
+
+    // how long a caller waits for the writer to pick its work up before giving up with 503
+    @Value("${transaction.group-commit.submit-timeout-ms}")
+    private long submitTimeoutMs;
+
+    @Value("${transaction.lock.max-attempts}")
+    private int lockMaxAttempts;
+
+    @Value("${transaction.lock.retry-backoff-ms}")
+    private long lockRetryBackoffMs;
+
+    private BlockingQueue<PendingWrite> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private DistributionSummary batchSizes;
+    private Timer commitTimer;
+    private Map<String, Timer> latencyTimers;
+
+    // started is claimed by whichever comes first: the writer applying the work, or the caller giving up on it
+    private record PendingWrite(Supplier<Response<?>> work, CompletableFuture<Response<?>> result,
+                                AtomicBoolean started, long enqueuedAt) {
+    }
+
+    @PostConstruct
+    private void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        batchSizes = DistributionSummary.builder("transaction.group_commit.batch_size")
+                .description("Transactions applied per DB commit")
+                .register(meterRegistry);
+        commitTimer = Timer.builder("transaction.group_commit.commit")
+                .description("Time to apply and commit one batch")
+                .register(meterRegistry);
+        latencyTimers = new HashMap<>();
+        for (String bucket : List.of("1", "2-8", "9-32", "33-128", "129+")) {
+            latencyTimers.put(bucket, Timer.builder("transaction.group_commit.latency")
+                    .description("Enqueue to commit latency, by the size of the batch the transaction was part of")
+                    .tag("batch_size", bucket)
+                    .register(meterRegistry));
+        }
+        meterRegistry.gauge("transaction.group_commit.queue_depth", queue, BlockingQueue::size);
+
+        if (engineMode == TransactionEngineMode.GROUP_COMMIT) {
+            running = true;
+            writer = new Thread(this::runWriter, "txn-group-commit");
+            writer.start();
+        }
+    }
+
+    @PreDestroy
+    private void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            // the writer keeps draining until the queue is empty
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+
+    /**
+     * Queues the work for the next batch and waits for its outcome. The work must not open its own
+     * transaction; it joins the batch transaction.
+     */
+    public Response<?> submit(Supplier<Response<?>> work) {
+        if (!running) {
+            throw new ServiceUnavailableException("Transaction writer is not running");
+        }
+        PendingWrite write = new PendingWrite(work, new CompletableFuture<>(), new AtomicBoolean(), System.nanoTime());
+        if (!queue.offer(write)) {
+            throw new ServiceUnavailableException("Too many pending transactions, please retry");
+        }
+
+        try {
+            try {
+                return write.result().get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (write.started().compareAndSet(false, true)) {
+                    // the writer has not touched it and now never will
+                    throw new ServiceUnavailableException("Transaction writer is busy, please retry");
+                }
+                // already being applied: the outcome is at most a few lock waits away
+                return write.result().get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for the transaction writer");
+        }
+    }
+
+
+    private void runWriter() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            // work its caller gave up on is dropped unapplied
+            batch.removeIf(write -> !write.started().compareAndSet(false, true));
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+
+    // blocks for the first item, then gathers more until the batch is full or max-wait-ms has passed
+    private void collect(List<PendingWrite> batch) throws InterruptedException {
+        PendingWrite first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0) {
+                return;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+
+    private void commit(List<PendingWrite> batch) {
+        List<PendingWrite> lockFailed = new ArrayList<>();
+        List<PendingWrite> pending = batch;
+        while (!pending.isEmpty()) {
+            pending = attempt(pending, lockFailed);
+        }
+        lockFailed.forEach(this::commitAlone);
+    }
+
+
+    /**
+     * Applies the items in one DB transaction and returns the ones to apply again. That list is
+     * empty unless a failed statement left the whole transaction rollback-only (Hibernate marks it
+     * whatever the savepoints undid): then everything is rolled back and the items that did not
+     * fail run again without the ones that did, so every round is at least one item shorter.
+     */
+    private List<PendingWrite> attempt(List<PendingWrite> items, List<PendingWrite> lockFailed) {
+        batchSizes.record(items.size());
+        long startedAt = System.nanoTime();
+
+        // per item: its response, or the business error it was rolled back to its savepoint for
+        Response<?>[] responses = new Response<?>[items.size()];
+        RuntimeException[] errors = new RuntimeException[items.size()];
+        boolean[] lockFailures = new boolean[items.size()];
+        AtomicBoolean doomed = new AtomicBoolean();
+        // set once every item ran: an exception after that comes from the COMMIT
+        AtomicBoolean applied = new AtomicBoolean();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // JDBC savepoints on the batch's connection; the JPA transaction manager offers none
+                Session session = entityManager.unwrap(Session.class);
+                for (int i = 0; i < items.size(); i++) {
+                    Savepoint savepoint = session.doReturningWork(Connection::setSavepoint);
+                    try {
+                        responses[i] = items.get(i).work().get();
+                        // run the item's SQL while its savepoint is still there to roll back to
+                        entityManager.flush();
+                        session.doWork(connection -> connection.releaseSavepoint(savepoint));
+                    } catch (RuntimeException ex) {
+                        RuntimeException error = translate(ex);
+                        rollbackTo(session, savepoint);
+                        if (error instanceof PessimisticLockingFailureException) {
+                            lockFailures[i] = true;
+                        } else {
+                            errors[i] = error;
+                        }
+                    }
+                }
+                if (status.isRollbackOnly()) {
+                    // marked locally too, so the template rolls back instead of throwing on COMMIT
+                    status.setRollbackOnly();
+                    doomed.set(true);
+                }
+                applied.set(true);
+            });
+        } catch (RuntimeException ex) {
+            if (applied.get() && !(ex instanceof UnexpectedRollbackException)) {
+                // the COMMIT may have gone through, so a replay could apply every item twice
+                log.error("Commit of {} grouped transactions failed, their outcome is unknown", items.size(), ex);
+                items.forEach(write -> complete(write, null, new ServiceUnavailableException(
+                        "The outcome of the transaction is unknown, check the account history before retrying"), items.size()));
+                return List.of();
+            }
+            // failed before the COMMIT (a deadlock victim, a lost savepoint), so nothing was applied
+            log.debug("Group commit of {} transactions rolled back, replaying them one by one", items.size(), ex);
+            items.forEach(this::commitAlone);
+            return List.of();
+        }
+
+        List<PendingWrite> retry = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (lockFailures[i]) {
+                lockFailed.add(items.get(i));
+            } else if (errors[i] != null || !doomed.get()) {
+                complete(items.get(i), responses[i], errors[i], items.size());
+            } else {
+                retry.add(items.get(i));
+            }
+        }
+
+        if (!doomed.get()) {
+            commitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        } else if (retry.size() == items.size()) {
+            // rolled back without any item failing: nothing to leave out, so apply each alone
+            log.debug("Group commit of {} transactions was marked rollback-only, replaying them one by one", items.size());
+            retry.forEach(this::commitAlone);
+            return List.of();
+        }
+        return retry;
+    }
+
+
+    // flush() is called on the EntityManager directly, so its exceptions miss the repositories' translation
+    private RuntimeException translate(RuntimeException ex) {
+        if (ex instanceof PersistenceException) {
+            DataAccessException translated = jpaDialect.translateExceptionIfPossible(ex);
+            if (translated != null) {
+                return translated;
+            }
+        }
+        return ex;
+    }
+
+
+    /**
+     * Undoes one item. Earlier items are flushed already, so the persistence context, which a
+     * savepoint does not roll back, is simply dropped. Throws when the savepoint is gone (the
+     * DB aborted the whole transaction), which fails the batch.
+     */
+    private void rollbackTo(Session session, Savepoint savepoint) {
+        session.doWork(connection -> connection.rollback(savepoint));
+        entityManager.clear();
+    }
+
+
+    // its own transaction, retried like a movement in JPA mode when the row locks time out
+    private void commitAlone(PendingWrite write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Response<?> response = transactionTemplate.execute(status -> write.work().get());
+                complete(write, response, null, 1);
+                return;
+            } catch (PessimisticLockingFailureException ex) {
+                if (attempt >= lockMaxAttempts) {
+                    complete(write, null, ex, 1);
+                    return;
+                }
+                log.warn("Lock conflict on group commit replay attempt {}/{}, retrying", attempt, lockMaxAttempts);
+                sleep(lockRetryBackoffMs * attempt);
+            } catch (RuntimeException ex) {
+                complete(write, null, ex, 1);
+                return;
+            }
+        }
+    }
+
+
+    private void complete(PendingWrite write, Response<?> response, RuntimeException error, int batchSize) {
+        latencyTimers.get(sizeBucket(batchSize)).record(System.nanoTime() - write.enqueuedAt(), TimeUnit.NANOSECONDS);
+
+        if (error != null) {
+            write.result().completeExceptionally(error);
+        } else {
+            write.result().complete(response);
+        }
+    }
+
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private static String sizeBucket(int size) {
+        if (size == 1) return "1";
+        if (size <= 8) return "2-8";
+        if (size <= 32) return "9-32";
+        if (size <= 128) return "33-128";
+        return "129+";
+    }
+}
@@ -1,16 +1,31 @@
 package com.example.demo.transaction.services;
 
 import com.example.demo.res.Response;
+import com.example.demo.transaction.dtos.TransactionBatchResult;
 import com.example.demo.transaction.dtos.TransactionRequest;
 import com.example.demo.transaction.dtos.TransactionDTO;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TransactionService {
 
     Response<?> createTransaction(TransactionRequest request);
 
+    /**
+     * As above; onApplied gets the response inside the DB transaction that applied the movement,
+     * so whatever it writes commits with the movement, and an exception from it rolls the movement back.
+     */
+    Response<?> createTransaction(TransactionRequest request, Consumer<Response<?>> onApplied);
+
+    // body is a JSON array of TransactionRequest, read as a stream
+    Response<List<TransactionBatchResult>> createTransactionBatch(InputStream body);
+
     Response<List<TransactionDTO>> getTransactionsForMyAccount(String accountNumber, int page, int size);
 
+    // keyset variant: no offset scan and no count query; cursor comes from the previous page's meta.nextCursor
+    Response<List<TransactionDTO>> getTransactionsForMyAccount(String accountNumber, String cursor, int size);
+
 
 }
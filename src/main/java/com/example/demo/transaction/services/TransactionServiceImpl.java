@@ -1,103 +1,237 @@
 package com.example.demo.transaction.services;
 
+import com.example.demo.account.dtos.AccountBalance;
 import com.example.demo.account.entity.Account;
 import com.example.demo.account.repo.AccountRepo;
 import com.example.demo.auth_users.entity.User;
-import com.example.demo.auth_users.services.UserService;
+import com.example.demo.auth_users.services.UserCache;
+import com.example.demo.enums.AccountStatus;
+import com.example.demo.enums.TransactionEngineMode;
 import com.example.demo.enums.TransactionStatus;
 import com.example.demo.enums.TransactionType;
 import com.example.demo.exceptions.BadRequestException;
 import com.example.demo.exceptions.InsufficientBalanceException;
 import com.example.demo.exceptions.InvalidTransactionException;
 import com.example.demo.exceptions.NotFoundException;
+import com.example.demo.ledger.dtos.LedgerPage;
+import com.example.demo.ledger.entity.LedgerEntry;
+import com.example.demo.ledger.services.LedgerService;
 import com.example.demo.notification.dtos.NotificationDTO;
-import com.example.demo.notification.services.NotificationService;
+import com.example.demo.notification.services.NotificationOutboxService;
 import com.example.demo.res.Response;
+import com.example.demo.security.CurrentUser;
+import com.example.demo.transaction.dtos.TransactionBatchResult;
 import com.example.demo.transaction.dtos.TransactionDTO;
 import com.example.demo.transaction.dtos.TransactionRequest;
 import com.example.demo.transaction.entity.Transaction;
 import com.example.demo.transaction.repo.TransactionRepo;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class TransactionServiceImpl implements TransactionService {
 
     private final AccountRepo accountRepository;
     private final TransactionRepo transactionRepository;
-    private final NotificationService notificationService;
-    private final UserService userService;
+    private final NotificationOutboxService notificationOutboxService;
+    private final CurrentUser currentUser;
     private final ModelMapper modelMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionShardExecutor shardExecutor;
+    private final TransactionGroupCommitWriter groupCommitWriter;
+    private final LedgerService ledgerService;
+    private final UserCache userCache;
+    private final EntityManager entityManager;
+
+    @Value("${transaction.engine.mode}")
+    private TransactionEngineMode engineMode;
+
+    @Value("${transaction.lock.max-attempts}")
+    private int lockMaxAttempts;
+
+    @Value("${transaction.lock.retry-backoff-ms}")
+    private long lockRetryBackoffMs;
+
+    // true: deposits/withdrawals are one guarded UPDATE; false: legacy read-modify-write of the entity
+    @Value("${transaction.balance.atomic-update}")
+    private boolean atomicBalanceUpdate;
+
+    @Value("${transaction.batch.chunk-size}")
+    private int batchChunkSize;
+
+    @Value("${transaction.batch.max-items}")
+    private int batchMaxItems;
+
+    @Value("${transaction.history.max-page-size}")
+    private int historyMaxPageSize;
+
+    // one side of an applied movement: whom to alert and the account's balance right after it
+    private record Posting(User owner, String accountNumber, BigDecimal balanceAfter) {
+    }
 
 
     @Override
-    @Transactional
     public Response<?> createTransaction(TransactionRequest request) {
+        return createTransaction(request, response -> {
+        });
+    }
+
+
+    @Override
+    public Response<?> createTransaction(TransactionRequest request, Consumer<Response<?>> onApplied) {
+        Supplier<Response<?>> work = () ->
+                inTransactionWithRetry(String.valueOf(request.getTransactionType()), () -> executeTransaction(request, onApplied));
+
+        if (engineMode == TransactionEngineMode.GROUP_COMMIT) {
+            // the writer supplies the (shared) transaction and isolates failures itself
+            return groupCommitWriter.submit(() -> executeTransaction(request, onApplied));
+        }
+        if (engineMode == TransactionEngineMode.SHARDED) {
+            String destination = request.getTransactionType() == TransactionType.TRANSFER
+                    ? request.getDestinationAccountNumber() : null;
+            return shardExecutor.execute(request.getAccountNumber(), destination, work);
+        }
+        return work.get();
+    }
+
+
+    /**
+     * Reads the array one element at a time and applies it in chunks, one DB transaction per chunk,
+     * so the request body never has to be held in memory.
+     */
+    @Override
+    public Response<List<TransactionBatchResult>> createTransactionBatch(InputStream body) {
+        long startedAt = System.nanoTime();
+        List<TransactionBatchResult> results = new ArrayList<>();
+        boolean truncated = false;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BadRequestException("Expected a JSON array of transactions");
+            }
+
+            List<TransactionRequest> chunk = new ArrayList<>(batchChunkSize);
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                int index = results.size() + chunk.size();
+                if (token != JsonToken.START_OBJECT) {
+                    // earlier chunks are committed already; the rest of the batch is never applied
+                    throw new BadRequestException("Item " + index + " of the batch is not a JSON object; the first "
+                            + results.size() + " items were applied");
+                }
+                if (index >= batchMaxItems) {
+                    // earlier chunks are already committed, so report what was done instead of failing
+                    truncated = true;
+                    break;
+                }
+                chunk.add(objectMapper.readValue(parser, TransactionRequest.class));
+                if (chunk.size() == batchChunkSize) {
+                    results.addAll(applyChunk(chunk, results.size()));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                results.addAll(applyChunk(chunk, results.size()));
+            }
+        } catch (IOException e) {
+            throw new BadRequestException("Malformed transaction batch: " + e.getMessage());
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        long succeeded = results.stream().filter(r -> r.getStatus() == TransactionStatus.SUCCESS).count();
+
+        return Response.<List<TransactionBatchResult>>builder()
+                .statusCode(200)
+                .message(truncated ? "Batch processed; items after the first " + batchMaxItems + " were ignored"
+                        : "Batch processed")
+                .data(results)
+                .meta(Map.of(
+                        "totalItems", results.size(),
+                        "truncated", truncated,
+                        "succeeded", succeeded,
+                        "failed", results.size() - succeeded,
+                        "elapsedMs", elapsedMs,
+                        "itemsPerSecond", results.size() * 1000L / elapsedMs
+                )).build();
+    }
+
+
+    private Response<?> executeTransaction(TransactionRequest request, Consumer<Response<?>> onApplied) {
 
         Transaction transaction = new Transaction();
         transaction.setTransactionType(request.getTransactionType());
         transaction.setAmount(request.getAmount());
         transaction.setDescription(request.getDescription());
 
+        Posting posting;
+        Account destination = null;
         switch (request.getTransactionType()) {
-            case DEPOSIT -> handleDeposit(request, transaction);
-            case WITHDRAWAL -> handleWithdrawal(request, transaction);
-            case TRANSFER -> handleTransfer(request, transaction);
+            case DEPOSIT -> posting = handleDeposit(request, transaction);
+            case WITHDRAWAL -> posting = handleWithdrawal(request, transaction);
+            case TRANSFER -> {
+                destination = handleTransfer(request, transaction);
+                posting = posting(transaction.getAccount());
+            }
             default -> throw new InvalidTransactionException("Invalid transaction type");
         }
 
         transaction.setStatus(TransactionStatus.SUCCESS);
         Transaction savedTxn = transactionRepository.save(transaction);
+        ledgerService.post(savedTxn, posting.balanceAfter(), destination);
 
         // ✅ Send notifications
-        sendTransactionNotifications(savedTxn);
+        sendTransactionNotifications(savedTxn, posting, destination == null ? null : posting(destination));
 
-        return Response.builder()
+        Response<?> response = Response.builder()
                 .statusCode(200)
                 .message("Transaction successful")
                 .build();
+        onApplied.accept(response);
+        return response;
     }
 
 
     @Override
     public Response<List<TransactionDTO>> getTransactionsForMyAccount(String accountNumber, int page, int size) {
 
-        // Get the currently logged-in user
-        User user = userService.getCurrentLoggedInUser();
+        Account account = findOwnedAccount(accountNumber);
 
-        // Find the account by its number
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new NotFoundException("Account not found"));
-
-        // ✅ Add the security check here
-        if (!account.getUser().getId().equals(user.getId())) {
-            throw new BadRequestException("Account does not belong to the authenticated user");
-        }
-
-        Pageable pageable = PageRequest.of(page, size, Sort.by("transactionDate").descending());
-        Page<Transaction> txns = transactionRepository.findByAccount_AccountNumber(accountNumber, pageable);
-
-        // Convert Page<Transaction> content to List<TransactionDTO>
-
-        List<TransactionDTO> transactionDTOS = txns.getContent().stream()
-                .map(transaction -> modelMapper.map(transaction, TransactionDTO.class))
-                .toList();
+        // read from the ledger, so incoming transfers show up too
+        Page<TransactionDTO> txns = ledgerService.getAccountHistory(account.getId(), page, size);
 
         return Response.<List<TransactionDTO>>builder()
                 .statusCode(200)
                 .message("Transactions retrieved")
-                .data(transactionDTOS)
+                .data(txns.getContent())
                 .meta(Map.of(
                         "currentPage", txns.getNumber(),
                         "totalItems", txns.getTotalElements(),
@@ -107,25 +241,70 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
 
+    @Override
+    public Response<List<TransactionDTO>> getTransactionsForMyAccount(String accountNumber, String cursor, int size) {
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1");
+        }
+        // larger requests get the largest page instead; meta.pageSize reports the size used
+        size = Math.min(size, historyMaxPageSize);
+
+        Account account = findOwnedAccount(accountNumber);
+        LedgerPage txns = ledgerService.getAccountHistoryAfter(account.getId(), cursor, size);
+
+        Map<String, Serializable> meta = new HashMap<>();
+        meta.put("pageSize", size);
+        meta.put("hasMore", txns.getNextCursor() != null);
+        if (txns.getNextCursor() != null) {
+            meta.put("nextCursor", txns.getNextCursor());
+        }
+
+        return Response.<List<TransactionDTO>>builder()
+                .statusCode(200)
+                .message("Transactions retrieved")
+                .data(txns.getItems())
+                .meta(meta)
+                .build();
+    }
+
+
+    private Account findOwnedAccount(String accountNumber) {
+
+        // the token's user id is enough for the ownership check
+        Long userId = currentUser.getId();
+
+        // Find the account by its number
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new NotFoundException("Account not found"));
+
+        // ✅ Add the security check here
+        if (!account.getUser().getId().equals(userId)) {
+            throw new BadRequestException("Account does not belong to the authenticated user");
+        }
+        return account;
+    }
+
+
     /**
-     * Helper method to notify sender/receiver
+     * Helper method to notify sender/receiver. The alerts go to the outbox in the same
+     * DB transaction, so nothing is sent for a movement that rolls back.
      */
-    private void sendTransactionNotifications(Transaction txn) {
-        User user = txn.getAccount().getUser();
+    private void sendTransactionNotifications(Transaction txn, Posting account, Posting destination) {
+        User user = account.owner();
         String subject;
         String template;
         Map<String, Object> vars = new HashMap<>();
 
         vars.put("name", user.getFirstName());
         vars.put("amount", txn.getAmount());
-        vars.put("accountNumber", txn.getAccount().getAccountNumber());
+        vars.put("accountNumber", account.accountNumber());
         vars.put("date", txn.getTransactionDate());
-        vars.put("balance", txn.getAccount().getBalance());
+        vars.put("balance", account.balanceAfter());
 
         if (txn.getTransactionType() == TransactionType.DEPOSIT) {
             subject = "Credit Alert";
             template = "credit-alert";
-            notificationService.sendEmail(NotificationDTO.builder()
+            notificationOutboxService.enqueue(NotificationDTO.builder()
                     .recipient(user.getEmail())
                     .subject(subject)
                     .templateName(template)
@@ -135,7 +314,7 @@ public class TransactionServiceImpl implements TransactionService {
         } else if (txn.getTransactionType() == TransactionType.WITHDRAWAL) {
             subject = "Debit Alert";
             template = "debit-alert";
-            notificationService.sendEmail(NotificationDTO.builder()
+            notificationOutboxService.enqueue(NotificationDTO.builder()
                     .recipient(user.getEmail())
                     .subject(subject)
                     .templateName(template)
@@ -146,7 +325,7 @@ public class TransactionServiceImpl implements TransactionService {
             // Sender DEBIT alert
             subject = "Debit Alert";
             template = "debit-alert";
-            notificationService.sendEmail(NotificationDTO.builder()
+            notificationOutboxService.enqueue(NotificationDTO.builder()
                     .recipient(user.getEmail())
                     .subject(subject)
                     .templateName(template)
@@ -154,19 +333,16 @@ public class TransactionServiceImpl implements TransactionService {
                     .build(), user);
 
             // Receiver CREDIT alert
-            Account destination = accountRepository.findByAccountNumber(txn.getDestinationAccount())
-                    .orElseThrow(() -> new NotFoundException("Destination account not found"));
-
-            User receiver = destination.getUser();
+            User receiver = destination.owner();
 
             Map<String, Object> recvVars = new HashMap<>();
             recvVars.put("name", receiver.getFirstName());
             recvVars.put("amount", txn.getAmount());
-            recvVars.put("accountNumber", destination.getAccountNumber());
+            recvVars.put("accountNumber", destination.accountNumber());
             recvVars.put("date", txn.getTransactionDate());
-            recvVars.put("balance", destination.getBalance());
+            recvVars.put("balance", destination.balanceAfter());
 
-            notificationService.sendEmail(NotificationDTO.builder()
+            notificationOutboxService.enqueue(NotificationDTO.builder()
                     .recipient(receiver.getEmail())
                     .subject("Credit Alert")
                     .templateName("credit-alert")
@@ -176,17 +352,34 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
 
-    private void handleDeposit(TransactionRequest request, Transaction transaction) {
+    private Posting handleDeposit(TransactionRequest request, Transaction transaction) {
+        if (atomicBalanceUpdate) {
+            int updated = accountRepository.creditIfActive(request.getAccountNumber(), request.getAmount(), LocalDateTime.now());
+            if (updated == 0) {
+                throw balanceUpdateRejected(request.getAccountNumber());
+            }
+            return afterBalanceUpdate(request.getAccountNumber(), transaction);
+        }
+
         Account account = accountRepository.findByAccountNumber(request.getAccountNumber())
                 .orElseThrow(() -> new NotFoundException("Account not found"));
 
         account.setBalance(account.getBalance().add(request.getAmount()));
         transaction.setAccount(account);
         accountRepository.save(account);
+        return posting(account);
     }
 
 
-    private void handleWithdrawal(TransactionRequest request, Transaction transaction) {
+    private Posting handleWithdrawal(TransactionRequest request, Transaction transaction) {
+        if (atomicBalanceUpdate) {
+            int updated = accountRepository.debitIfSufficient(request.getAccountNumber(), request.getAmount(), LocalDateTime.now());
+            if (updated == 0) {
+                throw balanceUpdateRejected(request.getAccountNumber());
+            }
+            return afterBalanceUpdate(request.getAccountNumber(), transaction);
+        }
+
         Account account = accountRepository.findByAccountNumber(request.getAccountNumber())
                 .orElseThrow(() -> new NotFoundException("Account not found"));
 
@@ -197,17 +390,57 @@ public class TransactionServiceImpl implements TransactionService {
         account.setBalance(account.getBalance().subtract(request.getAmount()));
         transaction.setAccount(account);
         accountRepository.save(account);
+        return posting(account);
+    }
+
+
+    /**
+     * The guarded UPDATE went straight to the DB: read back only the new balance and the ids,
+     * reference the account for the FK and take the owner from the user cache, so no entity is
+     * loaded. A copy the persistence context already holds (an earlier item of the same group
+     * commit) is refreshed instead of being cleared along with everything else.
+     */
+    private Posting afterBalanceUpdate(String accountNumber, Transaction transaction) {
+        AccountBalance updated = accountRepository.findBalanceByAccountNumber(accountNumber)
+                .orElseThrow(() -> new NotFoundException("Account not found"));
+
+        Account account = accountRepository.getReferenceById(updated.id());
+        if (Hibernate.isInitialized(account)) {
+            entityManager.refresh(account);
+        }
+        transaction.setAccount(account);
+
+        User owner = userCache.findById(updated.userId())
+                .orElseThrow(() -> new NotFoundException("Account owner not found"));
+        return new Posting(owner, accountNumber, updated.balance());
+    }
+
+
+    private static Posting posting(Account account) {
+        return new Posting(account.getUser(), account.getAccountNumber(), account.getBalance());
     }
 
 
-    private void handleTransfer(TransactionRequest request, Transaction transaction) {
+    // returns the destination account, already updated
+    private Account handleTransfer(TransactionRequest request, Transaction transaction) {
 
-        Account sourceAccount = accountRepository.findByAccountNumber(request.getAccountNumber())
+        Long sourceId = accountRepository.findIdByAccountNumber(request.getAccountNumber())
                 .orElseThrow(() -> new NotFoundException("Source account not found"));
 
-        Account destination = accountRepository.findByAccountNumber(request.getDestinationAccountNumber())
+        Long destinationId = accountRepository.findIdByAccountNumber(request.getDestinationAccountNumber())
                 .orElseThrow(() -> new NotFoundException("Destination account not found"));
 
+        // Always lock the lower id first, so opposing A->B and B->A transfers queue up instead of deadlocking
+        Account sourceAccount;
+        Account destination;
+        if (sourceId.compareTo(destinationId) <= 0) {
+            sourceAccount = lockAccount(sourceId);
+            destination = lockAccount(destinationId);
+        } else {
+            destination = lockAccount(destinationId);
+            sourceAccount = lockAccount(sourceId);
+        }
+
         if (sourceAccount.getBalance().compareTo(request.getAmount()) < 0) {
             throw new InsufficientBalanceException("Insufficient balance in source account");
         }
@@ -224,6 +457,197 @@ public class TransactionServiceImpl implements TransactionService {
         transaction.setSourceAccount(sourceAccount.getAccountNumber());
         transaction.setDestinationAccount(destination.getAccountNumber());
 
+        return destination;
+    }
+
+
+    /**
+     * One chunk of a bulk submission. Every involved account is locked once (ascending id),
+     * items are applied in order against the in-memory balances, so each account gets a single
+     * UPDATE at flush, and the transaction rows go out as a JDBC batch.
+     */
+    private List<TransactionBatchResult> applyChunk(List<TransactionRequest> chunk, int offset) {
+        try {
+            return inTransactionWithRetry("batch", () -> applyChunkInTransaction(chunk, offset));
+        } catch (RuntimeException ex) {
+            log.error("Transaction batch chunk at index {} rolled back", offset, ex);
+            List<TransactionBatchResult> failed = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                failed.add(TransactionBatchResult.builder()
+                        .index(offset + i)
+                        .status(TransactionStatus.FAILED)
+                        .message("Chunk rolled back: " + ex.getMessage())
+                        .build());
+            }
+            return failed;
+        }
+    }
+
+
+    private List<TransactionBatchResult> applyChunkInTransaction(List<TransactionRequest> chunk, int offset) {
+        Set<String> accountNumbers = new HashSet<>();
+        for (TransactionRequest request : chunk) {
+            if (request.getAccountNumber() != null) {
+                accountNumbers.add(request.getAccountNumber());
+            }
+            if (request.getDestinationAccountNumber() != null) {
+                accountNumbers.add(request.getDestinationAccountNumber());
+            }
+        }
+
+        List<Long> ids = accountNumbers.isEmpty() ? List.of() : accountRepository.findIdsByAccountNumberIn(accountNumbers);
+        Map<String, Account> accounts = ids.isEmpty() ? Map.of() : accountRepository.findAllByIdInForUpdate(ids).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<TransactionBatchResult> results = new ArrayList<>(chunk.size());
+        List<Transaction> transactions = new ArrayList<>();
+        List<LedgerEntry> entries = new ArrayList<>();
+        List<TransactionBatchResult> pending = new ArrayList<>();
+        // balances as of each item, not of the end of the chunk, for the alerts
+        List<Posting> accountPostings = new ArrayList<>();
+        List<Posting> destinationPostings = new ArrayList<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            TransactionRequest request = chunk.get(i);
+            TransactionBatchResult result = TransactionBatchResult.builder().index(offset + i).build();
+            results.add(result);
+
+            String error = validateBatchItem(request, accounts);
+            if (error != null) {
+                result.setStatus(TransactionStatus.FAILED);
+                result.setMessage(error);
+                continue;
+            }
+
+            Account account = accounts.get(request.getAccountNumber());
+            Transaction transaction = Transaction.builder()
+                    .transactionType(request.getTransactionType())
+                    .amount(request.getAmount())
+                    .description(request.getDescription())
+                    .transactionDate(now)
+                    .status(TransactionStatus.SUCCESS)
+                    .account(account)
+                    .build();
+
+            Account destination = null;
+            switch (request.getTransactionType()) {
+                case DEPOSIT -> account.setBalance(account.getBalance().add(request.getAmount()));
+                case WITHDRAWAL -> account.setBalance(account.getBalance().subtract(request.getAmount()));
+                case TRANSFER -> {
+                    destination = accounts.get(request.getDestinationAccountNumber());
+                    account.setBalance(account.getBalance().subtract(request.getAmount()));
+                    destination.setBalance(destination.getBalance().add(request.getAmount()));
+                    destination.setUpdatedAt(now);
+                    transaction.setSourceAccount(account.getAccountNumber());
+                    transaction.setDestinationAccount(destination.getAccountNumber());
+                }
+            }
+            account.setUpdatedAt(now);
+
+            // postings capture the running balance right after this item
+            entries.addAll(ledgerService.buildEntries(transaction, account.getBalance(), destination));
+            transactions.add(transaction);
+            accountPostings.add(posting(account));
+            destinationPostings.add(destination == null ? null : posting(destination));
+            pending.add(result);
+        }
+
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+        ledgerService.postAll(entries);
+        for (int i = 0; i < saved.size(); i++) {
+            pending.get(i).setStatus(TransactionStatus.SUCCESS);
+            pending.get(i).setTransactionId(saved.get(i).getId());
+            sendTransactionNotifications(saved.get(i), accountPostings.get(i), destinationPostings.get(i));
+        }
+        return results;
+    }
+
+
+    // checked against the running in-memory balances, so earlier items of the chunk count
+    private String validateBatchItem(TransactionRequest request, Map<String, Account> accounts) {
+        if (request.getTransactionType() == null) {
+            return "Transaction type is required";
+        }
+        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Amount must be greater than zero";
+        }
+        Account account = request.getAccountNumber() == null ? null : accounts.get(request.getAccountNumber());
+        if (account == null) {
+            return "Account not found";
+        }
+        if (account.getStatus() != AccountStatus.ACTIVE) {
+            return "Account is not active";
+        }
+        if (request.getTransactionType() == TransactionType.TRANSFER) {
+            Account destination = request.getDestinationAccountNumber() == null ? null
+                    : accounts.get(request.getDestinationAccountNumber());
+            if (destination == null) {
+                return "Destination account not found";
+            }
+            if (destination.getStatus() != AccountStatus.ACTIVE) {
+                return "Destination account is not active";
+            }
+        }
+        if (request.getTransactionType() != TransactionType.DEPOSIT
+                && account.getBalance().compareTo(request.getAmount()) < 0) {
+            return "Insufficient balance";
+        }
+        return null;
+    }
+
+
+    /**
+     * Runs the work in its own DB transaction and retries it when the row locks could not be
+     * taken in time (lock wait timeout or deadlock victim). The retry has to sit outside the
+     * transaction, since a lock failure marks it rollback-only.
+     */
+    private <T> T inTransactionWithRetry(String operation, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (PessimisticLockingFailureException ex) {
+                if (attempt >= lockMaxAttempts) {
+                    throw ex;
+                }
+                log.warn("Lock conflict on {} attempt {}/{}, retrying", operation, attempt, lockMaxAttempts);
+                backOff(attempt);
+            }
+        }
+    }
+
+
+    private Account findAccount(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new NotFoundException("Account not found"));
+    }
+
+
+    /**
+     * A guarded UPDATE touched no row; only now is the account read to tell the caller why.
+     */
+    private RuntimeException balanceUpdateRejected(String accountNumber) {
+        Account account = findAccount(accountNumber);
+        if (account.getStatus() != AccountStatus.ACTIVE) {
+            return new InvalidTransactionException("Account is not active");
+        }
+        return new InsufficientBalanceException("Insufficient balance");
+    }
+
+
+    private Account lockAccount(Long accountId) {
+        return accountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new NotFoundException("Account not found"));
+    }
+
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(lockRetryBackoffMs * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidTransactionException("Transaction interrupted while waiting to retry");
+        }
     }
 
 }
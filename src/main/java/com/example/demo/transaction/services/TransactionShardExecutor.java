@@ -0,0 +1,148 @@
+package com.example.demo.transaction.services;
+
+import com.example.demo.exceptions.ServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer execution for money movements: every account number hashes to one of N
+ * single-threaded shards, so mutations of an account run one after another and never wait
+ * on a row lock held by a sibling request, while different accounts run in parallel.
+ * <p>
+ * A transfer whose two accounts live on different shards takes both shards, always lower
+ * index first: the task runs on the lower shard and parks the higher one before doing the
+ * work. A shard thread therefore only ever waits for a higher shard to start, which rules
+ * out cycles between shards.
+ */
+@Component
+@Slf4j
+public class TransactionShardExecutor {
+
+    @Value("${transaction.engine.shards}")
+    private int shardCount;
+
+    @Value("${transaction.engine.queue-capacity}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor[] shards;
+
+    @PostConstruct
+    private void init() {
+        shards = new ThreadPoolExecutor[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            String threadName = "txn-shard-" + i;
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, threadName));
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdown();
+        }
+        for (ThreadPoolExecutor shard : shards) {
+            if (!shard.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Transaction shard did not drain within 30s, {} tasks left", shard.getQueue().size());
+            }
+        }
+    }
+
+
+    /**
+     * Runs the work on the shard owning accountNumber, or on both shards when
+     * otherAccountNumber (the transfer destination) is given, and waits for its result.
+     */
+    public <T> T execute(String accountNumber, String otherAccountNumber, Supplier<T> work) {
+        int first = shardOf(accountNumber);
+        int second = otherAccountNumber == null ? first : shardOf(otherAccountNumber);
+
+        if (first == second) {
+            return await(submit(first, work::get));
+        }
+
+        int lower = Math.min(first, second);
+        int higher = Math.max(first, second);
+        return await(submit(lower, () -> {
+            CountDownLatch parked = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(1);
+
+            // phase 1: reserve the higher shard
+            shards[higher].execute(() -> {
+                parked.countDown();
+                awaitUninterruptibly(done);
+            });
+            awaitUninterruptibly(parked);
+
+            // phase 2: both shards are ours, run and hand the higher one back
+            try {
+                return work.get();
+            } finally {
+                done.countDown();
+            }
+        }));
+    }
+
+
+    public int shardOf(String accountNumber) {
+        return Math.floorMod(Objects.hashCode(accountNumber), shards.length);
+    }
+
+
+    private <T> Future<T> submit(int shard, Callable<T> task) {
+        try {
+            return shards[shard].submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Too many pending transactions, please retry");
+        }
+    }
+
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw new ServiceUnavailableException("Too many pending transactions, please retry");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for the transaction");
+        }
+    }
+
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
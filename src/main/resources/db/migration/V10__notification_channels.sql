@@ -0,0 +1,12 @@
+-- Outbox rows and dead letters record their channel. Existing rows were all e-mails, which is
+-- also how the dispatcher reads a row without a channel.
+ALTER TABLE notification_outbox ADD COLUMN channel ENUM('EMAIL', 'SMS', 'PUSH') AFTER id;
+
+ALTER TABLE notification_dead_letters ADD COLUMN channel ENUM('EMAIL', 'SMS', 'PUSH') AFTER id;
+
+-- Per-channel opt-ins. The defaults match the entity's: email on, SMS and push off until the
+-- user opts in.
+ALTER TABLE notification_preferences
+    ADD COLUMN email_enabled BIT(1) NOT NULL DEFAULT b'1' AFTER digest_enabled,
+    ADD COLUMN sms_enabled BIT(1) NOT NULL DEFAULT b'0' AFTER email_enabled,
+    ADD COLUMN push_enabled BIT(1) NOT NULL DEFAULT b'0' AFTER sms_enabled;
@@ -0,0 +1,9 @@
+-- Notification ids come from a pooled sequence (allocation 50) so the log writer can
+-- JDBC-batch its inserts. Seeded like transactions_seq: the first block starts right after
+-- the ids already taken by the AUTO_INCREMENT column.
+CREATE TABLE notifications_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+INSERT INTO notifications_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 50 FROM notifications;
@@ -0,0 +1,3 @@
+-- The archiver walks notifications oldest first over (created_at, id).
+ALTER TABLE notifications
+    ADD INDEX idx_notifications_created (created_at, id);
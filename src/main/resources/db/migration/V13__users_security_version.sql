@@ -0,0 +1,4 @@
+-- Tokens carry the user's security_version; a password, role or status change bumps it so
+-- tokens issued before the change are refused. Existing users start at 0, which is also what
+-- their tokens issued before the claim existed are compared against.
+ALTER TABLE users ADD security_version BIGINT NOT NULL DEFAULT 0;
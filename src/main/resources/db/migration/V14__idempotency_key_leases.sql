@@ -0,0 +1,6 @@
+-- The key's claimant and how long its claim holds; a lease that ran out lets another request
+-- take an IN_PROGRESS key over. Keys written before this have no lease and are COMPLETED or
+-- expire on their own.
+ALTER TABLE idempotency_keys
+    ADD COLUMN owner_token VARCHAR(36) AFTER status,
+    ADD COLUMN lease_expires_at DATETIME(6) AFTER owner_token;
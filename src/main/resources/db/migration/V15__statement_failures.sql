@@ -0,0 +1,25 @@
+-- Accounts whose statement could not be rendered, recorded so the run moves on past them.
+CREATE TABLE statement_failures (
+    id BIGINT NOT NULL,
+    account_id BIGINT NOT NULL,
+    period VARCHAR(7) NOT NULL,
+    error VARCHAR(500),
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_statement_failures_period (period),
+    CONSTRAINT fk_statement_failures_account FOREIGN KEY (account_id) REFERENCES accounts (id)
+) ENGINE=InnoDB;
+
+-- Pooled sequence (allocation 50), starting at 1.
+CREATE TABLE statement_failures_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+INSERT INTO statement_failures_seq (next_val) VALUES (1);
+
+-- A run counts its failed accounts and is leased to one instance at a time, so the INSERT IGNORE
+-- in StatementRunRepo creates a period's run once and only its lease holder advances it.
+ALTER TABLE statement_runs
+    ADD COLUMN failed_accounts BIGINT NOT NULL DEFAULT 0 AFTER processed_accounts,
+    ADD COLUMN owner_token VARCHAR(36) AFTER failed_accounts,
+    ADD COLUMN lease_expires_at DATETIME(6) AFTER owner_token;
@@ -0,0 +1,4 @@
+-- Each claim stamps its rows with a token, and the relay's writes after a delivery only match
+-- rows still carrying it. Rows leased before this have no token; they become due again when
+-- their lease runs out.
+ALTER TABLE notification_outbox ADD COLUMN claim_token VARCHAR(36) AFTER available_at;
@@ -0,0 +1,8 @@
+-- The archiver's run lease: the instance holding the row is the only one appending to the
+-- shared archive files and deleting the rows it moved there.
+CREATE TABLE notification_archive_leases (
+    name VARCHAR(50) NOT NULL,
+    owner_token VARCHAR(36),
+    lease_expires_at DATETIME(6),
+    PRIMARY KEY (name)
+) ENGINE=InnoDB;
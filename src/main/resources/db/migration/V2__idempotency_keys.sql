@@ -0,0 +1,16 @@
+-- Outcomes of requests sent with an Idempotency-Key. The unique key on idempotency_key is
+-- what makes the INSERT IGNORE in IdempotencyRecordRepo claim a key at most once; the
+-- expires_at index serves the purge job.
+CREATE TABLE idempotency_keys (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    idempotency_key VARCHAR(64) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    status ENUM('IN_PROGRESS', 'COMPLETED') NOT NULL,
+    response_status_code INT,
+    response_message VARCHAR(255),
+    created_at DATETIME(6),
+    expires_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_idempotency_keys_key UNIQUE (idempotency_key),
+    INDEX idx_idempotency_keys_expires_at (expires_at)
+) ENGINE=InnoDB;
@@ -0,0 +1,10 @@
+-- Transaction ids come from a pooled sequence (allocation 50), which Hibernate keeps in a
+-- one-row table on MySQL. The pooled optimizer hands out next_val-49 .. next_val from the
+-- value it reads, so seeding next_val at MAX(id)+50 starts the first block right after the
+-- ids already taken by the AUTO_INCREMENT column.
+CREATE TABLE transactions_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+INSERT INTO transactions_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 50 FROM transactions;
@@ -0,0 +1,70 @@
+-- Double-entry postings: one per deposit or withdrawal, a DEBIT on the source and a CREDIT on
+-- the destination per transfer. Account history is a range scan on
+-- (account_id, posted_at, id).
+CREATE TABLE ledger_entries (
+    id BIGINT NOT NULL,
+    account_id BIGINT NOT NULL,
+    transaction_id BIGINT NOT NULL,
+    entry_type ENUM('DEBIT', 'CREDIT') NOT NULL,
+    transaction_type ENUM('DEPOSIT', 'WITHDRAWAL', 'TRANSFER') NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    balance_after DECIMAL(19, 2) NOT NULL,
+    counterparty_account VARCHAR(20),
+    description VARCHAR(255),
+    posted_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_ledger_entries_account_posted (account_id, posted_at, id),
+    CONSTRAINT fk_ledger_entries_account FOREIGN KEY (account_id) REFERENCES accounts (id),
+    CONSTRAINT fk_ledger_entries_transaction FOREIGN KEY (transaction_id) REFERENCES transactions (id)
+) ENGINE=InnoDB;
+
+-- Back-fill the postings of every transaction written before the ledger existed, so history
+-- reads (which only use the ledger) still show them. Only SUCCESS rows moved money. Ids follow
+-- (posted_at, transaction, side), so the (posted_at, id) order matches the original one.
+-- A posting's balance_after is the account's current balance minus every later movement of
+-- that account, which assumes all balance changes so far went through transactions.
+INSERT INTO ledger_entries (id, account_id, transaction_id, entry_type, transaction_type, amount,
+                            balance_after, counterparty_account, description, posted_at)
+WITH postings AS (
+    SELECT t.account_id,
+           t.id AS transaction_id,
+           0 AS side,
+           CASE t.transaction_type WHEN 'DEPOSIT' THEN 'CREDIT' ELSE 'DEBIT' END AS entry_type,
+           t.transaction_type,
+           t.amount,
+           CASE t.transaction_type WHEN 'DEPOSIT' THEN t.amount ELSE -t.amount END AS delta,
+           CASE t.transaction_type WHEN 'TRANSFER' THEN t.destination_account END AS counterparty_account,
+           t.description,
+           t.transaction_date AS posted_at
+    FROM transactions t
+    WHERE t.status = 'SUCCESS'
+    UNION ALL
+    SELECT d.id, t.id, 1, 'CREDIT', t.transaction_type, t.amount, t.amount, t.source_account,
+           t.description, t.transaction_date
+    FROM transactions t
+    JOIN accounts d ON d.account_number = t.destination_account
+    WHERE t.status = 'SUCCESS' AND t.transaction_type = 'TRANSFER'
+)
+SELECT ROW_NUMBER() OVER (ORDER BY p.posted_at, p.transaction_id, p.side),
+       p.account_id,
+       p.transaction_id,
+       p.entry_type,
+       p.transaction_type,
+       p.amount,
+       a.balance - COALESCE(SUM(p.delta) OVER (
+               PARTITION BY p.account_id
+               ORDER BY p.posted_at DESC, p.transaction_id DESC, p.side DESC
+               ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0),
+       p.counterparty_account,
+       p.description,
+       p.posted_at
+FROM postings p
+JOIN accounts a ON a.id = p.account_id;
+
+-- Pooled sequence (allocation 50) seeded past the back-filled ids, as for transactions_seq.
+CREATE TABLE ledger_entries_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+INSERT INTO ledger_entries_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 50 FROM ledger_entries;
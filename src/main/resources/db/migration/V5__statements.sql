@@ -0,0 +1,35 @@
+-- Monthly statements. The unique (account_id, period) key keeps an account from being
+-- rendered twice for a month, and the unique period on statement_runs gives each month a
+-- single run to resume from.
+CREATE TABLE statements (
+    id BIGINT NOT NULL,
+    account_id BIGINT NOT NULL,
+    period VARCHAR(7) NOT NULL,
+    html LONGTEXT NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_statements_account_period UNIQUE (account_id, period),
+    CONSTRAINT fk_statements_account FOREIGN KEY (account_id) REFERENCES accounts (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE statement_runs (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    period VARCHAR(7) NOT NULL,
+    status ENUM('RUNNING', 'COMPLETED') NOT NULL,
+    last_account_id BIGINT NOT NULL,
+    processed_accounts BIGINT NOT NULL,
+    started_at DATETIME(6),
+    finished_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_statement_runs_period UNIQUE (period)
+) ENGINE=InnoDB;
+
+-- Pooled sequence (allocation 50) of statements, starting at 1.
+CREATE TABLE statements_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+INSERT INTO statements_seq (next_val) VALUES (1);
+
+-- Statements are also recorded as notifications with their full HTML body.
+ALTER TABLE notifications MODIFY body LONGTEXT;
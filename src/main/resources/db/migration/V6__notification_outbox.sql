@@ -0,0 +1,28 @@
+-- Notifications written in the transaction of the change they report on and delivered by the
+-- relay. The relay claims due rows with status = 'PENDING' AND available_at <= now ORDER BY
+-- available_at ... FOR UPDATE SKIP LOCKED: (status, available_at) serves the equality, the
+-- range and the order, so the claim never scans or locks rows it does not return.
+CREATE TABLE notification_outbox (
+    id BIGINT NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255),
+    template_name VARCHAR(255),
+    template_variables LONGTEXT,
+    user_id BIGINT,
+    status ENUM('PENDING', 'SENT', 'FAILED') NOT NULL,
+    attempts INT NOT NULL,
+    available_at DATETIME(6) NOT NULL,
+    created_at DATETIME(6),
+    sent_at DATETIME(6),
+    last_error VARCHAR(500),
+    PRIMARY KEY (id),
+    INDEX idx_notification_outbox_status_available (status, available_at),
+    CONSTRAINT fk_notification_outbox_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+-- Pooled sequence (allocation 50), starting at 1.
+CREATE TABLE notification_outbox_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+INSERT INTO notification_outbox_seq (next_val) VALUES (1);
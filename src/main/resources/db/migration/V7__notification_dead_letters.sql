@@ -0,0 +1,19 @@
+-- Notifications the dispatcher gave up on after their last retry, kept for inspection or a
+-- manual resend.
+CREATE TABLE notification_dead_letters (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    recipient VARCHAR(255),
+    subject VARCHAR(255),
+    template_name VARCHAR(255),
+    template_variables LONGTEXT,
+    body LONGTEXT,
+    user_id BIGINT,
+    attempts INT NOT NULL,
+    last_error VARCHAR(500),
+    failed_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_notification_dead_letters_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+-- Outbox rows may now carry a pre-rendered body instead of a template.
+ALTER TABLE notification_outbox ADD COLUMN body LONGTEXT AFTER template_variables;
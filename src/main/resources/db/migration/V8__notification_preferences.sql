@@ -0,0 +1,15 @@
+-- One row of notification settings per user, hence the unique user_id.
+CREATE TABLE notification_preferences (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    digest_enabled BIT(1) NOT NULL,
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_notification_preferences_user UNIQUE (user_id),
+    CONSTRAINT fk_notification_preferences_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+-- Alerts of digest users are grouped per key and claimed through (digest_key, status).
+ALTER TABLE notification_outbox
+    ADD COLUMN digest_key VARCHAR(100) AFTER user_id,
+    ADD INDEX idx_notification_outbox_digest (digest_key, status);
@@ -0,0 +1,15 @@
+-- In-app feed: a read marker per notification, keyset pages over (user_id, created_at, id),
+-- and per-user unread counters kept next to the rows.
+ALTER TABLE notifications
+    ADD COLUMN read_at DATETIME(6),
+    ADD INDEX idx_notifications_user_created (user_id, created_at, id);
+
+-- Notifications sent before the feed existed count as read, so every counter starts at zero
+-- and stays equal to the user's rows with read_at IS NULL.
+UPDATE notifications SET read_at = created_at WHERE read_at IS NULL;
+
+CREATE TABLE notification_unread_counters (
+    user_id BIGINT NOT NULL,
+    unread_count BIGINT NOT NULL,
+    PRIMARY KEY (user_id)
+) ENGINE=InnoDB;
@@ -0,0 +1,77 @@
+package com.example.demo;
+
+import com.example.demo.account.entity.Account;
+import com.example.demo.account.repo.AccountRepo;
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.enums.AccountStatus;
+import com.example.demo.enums.AccountType;
+import com.example.demo.enums.Currency;
+import com.example.demo.enums.TransactionType;
+import com.example.demo.res.Response;
+import com.example.demo.transaction.dtos.TransactionRequest;
+import com.example.demo.transaction.services.TransactionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Active USD savings accounts for the tests, each call under a new owner with unique account
+ * numbers, so tests sharing the in-memory database never see each other's rows. Picked up by
+ * the application's component scan in every @SpringBootTest.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountFixture {
+
+    private final UserRepo userRepository;
+    private final AccountRepo accountRepository;
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+
+
+    public Account open(BigDecimal balance) {
+        return open(1, balance).get(0);
+    }
+
+
+    public List<Account> open(int count, BigDecimal balance) {
+        return transactionTemplate.execute(status -> {
+            String run = UUID.randomUUID().toString().substring(0, 8);
+            User owner = userRepository.save(User.builder()
+                    .firstName("Fixture")
+                    .lastName("Owner")
+                    .email("owner-" + run + "@example.com")
+                    .active(true)
+                    .build());
+
+            List<Account> accounts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                accounts.add(Account.builder()
+                        .accountNumber(run + String.format("%04d", i))
+                        .balance(balance)
+                        .accountType(AccountType.SAVINGS)
+                        .currency(Currency.USD)
+                        .status(AccountStatus.ACTIVE)
+                        .user(owner)
+                        .build());
+            }
+            return accountRepository.saveAll(accounts);
+        });
+    }
+
+
+    public Response<?> deposit(Account account, int amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setTransactionType(TransactionType.DEPOSIT);
+        request.setAccountNumber(account.getAccountNumber());
+        request.setAmount(BigDecimal.valueOf(amount));
+        request.setDescription("deposit");
+        return transactionService.createTransaction(request);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.audit_dashboard;
+
+import com.example.demo.AccountFixture;
+import com.example.demo.account.entity.Account;
+import com.example.demo.audit_dashboard.service.AuditorService;
+import com.example.demo.enums.ExportFormat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuditorExportTest {
+
+    @Autowired
+    private AuditorService auditorService;
+
+    @Autowired
+    private AccountFixture accountFixture;
+
+
+    // one object per line and nothing before it, so line-based NDJSON readers accept every row
+    @Test
+    void ndjsonRowsStartAtTheBeginningOfTheirLine() {
+        Account account = accountFixture.open(BigDecimal.ZERO);
+        for (int i = 1; i <= 3; i++) {
+            accountFixture.deposit(account, i);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        auditorService.exportTransactions(account.getId(), ExportFormat.NDJSON, null, null, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n"))
+                .hasSize(3)
+                .allSatisfy(line -> assertThat(line).startsWith("{\"id\":").endsWith("}"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.auth_users;
+
+import com.example.demo.account.entity.Account;
+import com.example.demo.account.repo.AccountRepo;
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.auth_users.services.UserCache;
+import com.example.demo.enums.AccountStatus;
+import com.example.demo.enums.AccountType;
+import com.example.demo.enums.Currency;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserCacheTest {
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private UserRepo userRepository;
+
+    @Autowired
+    private AccountRepo accountRepository;
+
+
+    // a cached user is read outside any session: its columns work, its accounts fail loudly
+    @Test
+    void cachedUserRefusesItsAccounts() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        User owner = userRepository.save(User.builder()
+                .firstName("Cache")
+                .lastName("Test")
+                .email("cache-" + run + "@example.com")
+                .active(true)
+                .build());
+        accountRepository.save(Account.builder()
+                .accountNumber(run + "0001")
+                .balance(BigDecimal.ZERO)
+                .accountType(AccountType.SAVINGS)
+                .currency(Currency.USD)
+                .status(AccountStatus.ACTIVE)
+                .user(owner)
+                .build());
+
+        User cached = userCache.findByEmail(owner.getEmail()).orElseThrow();
+
+        assertThat(userCache.findById(owner.getId())).containsSame(cached);
+        assertThat(cached.getFirstName()).isEqualTo("Cache");
+        assertThat(cached.toString()).contains(owner.getEmail());
+        assertThatThrownBy(() -> cached.getAccounts().isEmpty())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("AccountRepo");
+    }
+}
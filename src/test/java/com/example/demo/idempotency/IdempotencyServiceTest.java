@@ -0,0 +1,145 @@
+package com.example.demo.idempotency;
+
+import com.example.demo.enums.IdempotencyStatus;
+import com.example.demo.exceptions.InsufficientBalanceException;
+import com.example.demo.idempotency.entity.IdempotencyRecord;
+import com.example.demo.idempotency.repo.IdempotencyRecordRepo;
+import com.example.demo.idempotency.services.IdempotencyService;
+import com.example.demo.res.Response;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@WithMockUser(username = "idempotency@example.com")
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepo idempotencyRecordRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+
+    @Test
+    void repeatedKeyIsAnsweredFromTheStoredResponse() {
+        String key = UUID.randomUUID().toString();
+
+        Response<?> first = idempotencyService.execute(key, Map.of("amount", 10), movement(false));
+        Response<?> second = idempotencyService.execute(key, Map.of("amount", 10), movement(false));
+
+        assertThat(executions).hasValue(1);
+        assertThat(second.getMessage()).isEqualTo(first.getMessage());
+        assertThat(record(key).getStatus()).isEqualTo(IdempotencyStatus.COMPLETED);
+    }
+
+
+    @Test
+    void fingerprintIgnoresFieldOrder() {
+        String key = UUID.randomUUID().toString();
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("amount", 10);
+        request.put("accountNumber", "0001");
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("accountNumber", "0001");
+        reordered.put("amount", 10);
+
+        idempotencyService.execute(key, request, movement(false));
+        idempotencyService.execute(key, reordered, movement(false));
+
+        assertThat(executions).hasValue(1);
+    }
+
+
+    // the COMPLETED mark is written in the movement's transaction, so it rolls back with it
+    @Test
+    void failedMovementLeavesTheKeyFreeForARetry() {
+        String key = UUID.randomUUID().toString();
+
+        assertThatThrownBy(() -> idempotencyService.execute(key, Map.of("amount", 10), movement(true)))
+                .isInstanceOf(InsufficientBalanceException.class);
+        assertThat(idempotencyRecordRepo.findByIdempotencyKey(hashedKey(key))).isEmpty();
+
+        idempotencyService.execute(key, Map.of("amount", 10), movement(false));
+        assertThat(executions).hasValue(2);
+        assertThat(record(key).getStatus()).isEqualTo(IdempotencyStatus.COMPLETED);
+    }
+
+
+    // what a request that crashed after claiming the key, but before committing, leaves behind
+    @Test
+    void claimWithAnExpiredLeaseIsTakenOver() {
+        String key = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        idempotencyRecordRepo.save(IdempotencyRecord.builder()
+                .idempotencyKey(hashedKey(key))
+                .requestHash(sha256("{\"amount\":10}"))
+                .status(IdempotencyStatus.IN_PROGRESS)
+                .ownerToken(UUID.randomUUID().toString())
+                .leaseExpiresAt(now.minusSeconds(1))
+                .createdAt(now.minusMinutes(5))
+                .expiresAt(now.plusHours(1))
+                .build());
+
+        idempotencyService.execute(key, Map.of("amount", 10), movement(false));
+
+        assertThat(executions).hasValue(1);
+        assertThat(record(key).getStatus()).isEqualTo(IdempotencyStatus.COMPLETED);
+    }
+
+
+    // stands in for a money movement: completes the key in its own DB transaction, or fails after doing so
+    private Function<Consumer<Response<?>>, Response<?>> movement(boolean fail) {
+        return completeKey -> transactionTemplate.execute(status -> {
+            executions.incrementAndGet();
+            Response<?> response = Response.builder().statusCode(200).message("Transaction successful").build();
+            completeKey.accept(response);
+            if (fail) {
+                throw new InsufficientBalanceException("Insufficient balance");
+            }
+            return response;
+        });
+    }
+
+
+    private IdempotencyRecord record(String key) {
+        return idempotencyRecordRepo.findByIdempotencyKey(hashedKey(key)).orElseThrow();
+    }
+
+
+    private static String hashedKey(String key) {
+        return sha256("idempotency@example.com:" + key);
+    }
+
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.ledger;
+
+import com.example.demo.AccountFixture;
+import com.example.demo.account.entity.Account;
+import com.example.demo.ledger.dtos.LedgerPage;
+import com.example.demo.ledger.services.LedgerService;
+import com.example.demo.transaction.dtos.TransactionDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LedgerHistoryTest {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountFixture accountFixture;
+
+
+    // the deferred-join offset page and the keyset page walk the same order
+    @Test
+    void offsetAndKeysetPagesAgree() {
+        Account account = accountFixture.open(BigDecimal.ZERO);
+        for (int i = 1; i <= 5; i++) {
+            accountFixture.deposit(account, i);
+        }
+
+        Page<TransactionDTO> second = ledgerService.getAccountHistory(account.getId(), 1, 2);
+        LedgerPage first = ledgerService.getAccountHistoryAfter(account.getId(), null, 2);
+        LedgerPage next = ledgerService.getAccountHistoryAfter(account.getId(), first.getNextCursor(), 2);
+
+        assertThat(second.getTotalElements()).isEqualTo(5);
+        assertThat(second.getContent()).extracting(TransactionDTO::getAmount)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("3"), new BigDecimal("2"));
+        assertThat(next.getItems()).extracting(TransactionDTO::getId)
+                .containsExactlyElementsOf(second.getContent().stream().map(TransactionDTO::getId).toList());
+    }
+
+
+    // the unpaged list the auditor's by-account view returns, oldest first with running balances
+    @Test
+    void fullHistoryListsEveryPostingOldestFirst() {
+        Account account = accountFixture.open(BigDecimal.ZERO);
+        for (int i = 1; i <= 3; i++) {
+            accountFixture.deposit(account, i);
+        }
+
+        assertThat(ledgerService.getFullAccountHistory(account.getId()))
+                .extracting(TransactionDTO::getBalanceAfter)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("1"), new BigDecimal("3"), new BigDecimal("6"));
+    }
+}
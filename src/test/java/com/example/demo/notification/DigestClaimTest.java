@@ -0,0 +1,61 @@
+package com.example.demo.notification;
+
+import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.OutboxStatus;
+import com.example.demo.notification.entity.NotificationOutbox;
+import com.example.demo.notification.repo.NotificationOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DigestClaimTest {
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+
+    // leased and backed-off rows belong to the relay that claimed them; the cap applies per digest
+    @Test
+    void claimTakesDueAndHeldAlertsOnlyUpToTheCap() {
+        String digestKey = UUID.randomUUID() + ":transaction-alert";
+        LocalDateTime now = LocalDateTime.now();
+        NotificationOutbox due = row(digestKey, 0, now.minusSeconds(1));
+        NotificationOutbox leased = row(digestKey, 1, now.plusMinutes(5));
+        NotificationOutbox held = row(digestKey, 0, now.plusMinutes(5));
+        NotificationOutbox overCap = row(digestKey, 0, now.plusMinutes(5));
+        outboxRepository.saveAll(List.of(due, leased, held, overCap));
+
+        List<NotificationOutbox> claimed = transactionTemplate.execute(status ->
+                outboxRepository.claimDigestRows(digestKey, now, 2));
+
+        assertThat(claimed).extracting(NotificationOutbox::getId).containsExactly(due.getId(), held.getId());
+    }
+
+
+    private static NotificationOutbox row(String digestKey, int attempts, LocalDateTime availableAt) {
+        return NotificationOutbox.builder()
+                .channel(NotificationType.EMAIL)
+                .recipient("digest@example.com")
+                .subject("Transaction alert")
+                .templateName("transaction-alert")
+                .digestKey(digestKey)
+                .status(OutboxStatus.PENDING)
+                .attempts(attempts)
+                .availableAt(availableAt)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.notification;
+
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.notification.dtos.ArchivedNotification;
+import com.example.demo.notification.entity.Notification;
+import com.example.demo.notification.repo.NotificationRepository;
+import com.example.demo.notification.services.NotificationArchiver;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "notification.archive.enabled=true",
+        // a fresh directory per run: the in-memory DB hands out the same user ids again
+        "notification.archive.dir=target/archive-${random.uuid}",
+        "notification.archive.shards=1",
+        "notification.archive.batch-size=3"
+})
+@ActiveProfiles("test")
+class NotificationArchiverTest {
+
+    private static final LocalDateTime ARCHIVED_AT = LocalDateTime.of(2002, 3, 10, 12, 0);
+
+    @Autowired
+    private NotificationArchiver notificationArchiver;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepo userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+
+    // one shard holds both users and several batches; a read only gets its own user's rows
+    @Test
+    void readReturnsOnlyTheUsersArchivedRows() {
+        User alice = user();
+        User bob = user();
+        List<Notification> old = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            old.add(notification(alice, "alice " + i));
+            old.add(notification(bob, "bob " + i));
+        }
+        List<Long> ids = notificationRepository.saveAll(old).stream().map(Notification::getId).toList();
+        for (int i = 0; i < ids.size(); i++) {
+            jdbcTemplate.update("UPDATE notifications SET created_at = ? WHERE id = ?",
+                    Timestamp.valueOf(ARCHIVED_AT.plusMinutes(i)), ids.get(i));
+        }
+
+        notificationArchiver.archiveExpired();
+
+        assertThat(notificationRepository.findAllById(ids)).isEmpty();
+        assertThat(notificationArchiver.read(alice.getId(), YearMonth.from(ARCHIVED_AT)))
+                .extracting(ArchivedNotification::subject)
+                .containsExactly("alice 3", "alice 2", "alice 1", "alice 0");
+        assertThat(notificationArchiver.read(bob.getId(), YearMonth.from(ARCHIVED_AT))).hasSize(4);
+        assertThat(notificationArchiver.read(alice.getId(), YearMonth.from(ARCHIVED_AT).minusMonths(1))).isEmpty();
+    }
+
+
+    // another instance holds the lease: nothing is archived here until it runs out
+    @Test
+    void leavesTheRowsAloneWhileAnotherInstanceHoldsTheLease() {
+        User carol = user();
+        Long id = notificationRepository.save(notification(carol, "carol")).getId();
+        jdbcTemplate.update("UPDATE notifications SET created_at = ? WHERE id = ?", Timestamp.valueOf(ARCHIVED_AT), id);
+        jdbcTemplate.update("DELETE FROM notification_archive_leases");
+        jdbcTemplate.update("INSERT INTO notification_archive_leases (name, owner_token, lease_expires_at) VALUES (?, ?, ?)",
+                "notifications", "other-instance", Timestamp.valueOf(LocalDateTime.now().plusMinutes(10)));
+
+        notificationArchiver.archiveExpired();
+
+        assertThat(notificationRepository.findById(id)).isPresent();
+
+        jdbcTemplate.update("UPDATE notification_archive_leases SET lease_expires_at = ? WHERE name = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), "notifications");
+
+        notificationArchiver.archiveExpired();
+
+        assertThat(notificationRepository.findById(id)).isEmpty();
+        assertThat(notificationArchiver.read(carol.getId(), YearMonth.from(ARCHIVED_AT)))
+                .extracting(ArchivedNotification::subject)
+                .containsExactly("carol");
+        assertThat(jdbcTemplate.queryForObject("SELECT owner_token FROM notification_archive_leases WHERE name = ?",
+                String.class, "notifications")).isNull();
+    }
+
+
+    private User user() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        return userRepository.save(User.builder()
+                .firstName("Archive")
+                .lastName("Test")
+                .email("archive-" + run + "@example.com")
+                .active(true)
+                .build());
+    }
+
+
+    private static Notification notification(User user, String subject) {
+        return Notification.builder()
+                .recipient(user.getEmail())
+                .subject(subject)
+                .type(NotificationType.EMAIL)
+                .user(user)
+                .build();
+    }
+}
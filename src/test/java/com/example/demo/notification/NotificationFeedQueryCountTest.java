@@ -0,0 +1,89 @@
+package com.example.demo.notification;
+
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.notification.services.NotificationFeedService;
+import com.example.demo.notification.services.NotificationPreferenceService;
+import com.example.demo.security.AuthUser;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the caller's id comes from the principal, so a feed read is only the feed's own query
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class NotificationFeedQueryCountTest {
+
+    @Autowired
+    private NotificationFeedService feedService;
+
+    @Autowired
+    private NotificationPreferenceService preferenceService;
+
+    @Autowired
+    private UserRepo userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+
+    @BeforeEach
+    void signIn() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        User user = userRepository.save(User.builder()
+                .firstName("Feed")
+                .lastName("Test")
+                .email("feed-" + run + "@example.com")
+                .active(true)
+                .roles(List.of())
+                .build());
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        AuthUser principal = AuthUser.builder().user(user).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+
+    @Test
+    void feedReadsRunOneStatementEach() {
+        feedService.getMyNotifications(null, 20);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        feedService.getMyUnreadCount();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        preferenceService.getMyPreferences();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.notification;
+
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.notification.entity.Notification;
+import com.example.demo.notification.repo.NotificationRepository;
+import com.example.demo.notification.repo.NotificationUnreadCounterRepository;
+import com.example.demo.notification.services.NotificationLogWriter;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mockingDetails;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class NotificationLogWriterTest {
+
+    @Autowired
+    private NotificationLogWriter notificationLogWriter;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepo userRepository;
+
+    @MockitoSpyBean
+    private NotificationUnreadCounterRepository unreadCounterRepository;
+
+
+    // a batch whose transaction fails once is written on the retry, exactly once
+    @Test
+    void failedFlushIsRetried() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        User user = userRepository.save(User.builder()
+                .firstName("Log")
+                .lastName("Writer")
+                .email("log-" + run + "@example.com")
+                .active(true)
+                .build());
+        // the spy's default answer is what reaches the real repository
+        Answer<?> real = mockingDetails(unreadCounterRepository).getMockCreationSettings().getDefaultAnswer();
+        doThrow(new TransientDataAccessResourceException("failover"))
+                .doAnswer(real)
+                .when(unreadCounterRepository).increment(eq(user.getId()), anyLong());
+
+        notificationLogWriter.append(List.of(Notification.builder()
+                .recipient(user.getEmail())
+                .subject("Retried")
+                .type(NotificationType.EMAIL)
+                .user(user)
+                .build()));
+
+        List<Notification> written = List.of();
+        for (int i = 0; i < 50 && written.isEmpty(); i++) {
+            Thread.sleep(100);
+            written = notificationRepository.findAll().stream()
+                    .filter(n -> user.getEmail().equals(n.getRecipient()))
+                    .toList();
+        }
+        assertThat(written).hasSize(1);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.notification;
+
+import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.OutboxStatus;
+import com.example.demo.exceptions.ServiceUnavailableException;
+import com.example.demo.notification.entity.NotificationOutbox;
+import com.example.demo.notification.repo.NotificationOutboxRepository;
+import com.example.demo.notification.services.NotificationOutboxService;
+import com.example.demo.notification.services.NotificationRouter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+// short enough for a lease to run out within a test
+@TestPropertySource(properties = "notification.outbox.lease-ms=400")
+class OutboxRelayTest {
+
+    @Autowired
+    private NotificationOutboxService outboxService;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @MockitoBean
+    private NotificationRouter notificationRouter;
+
+
+    // a full channel lane is a reschedule, not a failed attempt
+    @Test
+    void saturatedChannelDoesNotUseUpAttempts() {
+        when(notificationRouter.deliver(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ServiceUnavailableException("Notification channel EMAIL is saturated")));
+        NotificationOutbox row = outboxRepository.save(NotificationOutbox.builder()
+                .channel(NotificationType.EMAIL)
+                .recipient("relay@example.com")
+                .subject("Saturated")
+                .body("<p>hello</p>")
+                .status(OutboxStatus.PENDING)
+                .attempts(4)
+                .availableAt(LocalDateTime.now().minusSeconds(1))
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        outboxService.relay();
+
+        NotificationOutbox after = outboxRepository.findById(row.getId()).orElseThrow();
+        assertThat(after.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(after.getAttempts()).isEqualTo(4);
+        assertThat(after.getAvailableAt()).isAfter(LocalDateTime.now());
+    }
+
+
+    // the relay stops waiting within its lease, and its late outcome cannot undo a later claim's
+    @Test
+    @Timeout(10)
+    void lateOutcomeOfAnExpiredClaimChangesNothing() throws Exception {
+        CompletableFuture<Void> stuck = new CompletableFuture<>();
+        when(notificationRouter.deliver(any(), any()))
+                .thenReturn(stuck, CompletableFuture.completedFuture(null));
+        NotificationOutbox row = outboxRepository.save(NotificationOutbox.builder()
+                .channel(NotificationType.EMAIL)
+                .recipient("relay@example.com")
+                .subject("Slow lane")
+                .body("<p>hello</p>")
+                .status(OutboxStatus.PENDING)
+                .availableAt(LocalDateTime.now().minusSeconds(1))
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        outboxService.relay();
+        Thread.sleep(500);
+        // the lease ran out: the next relay claims the row again and sends it
+        outboxService.relay();
+        stuck.completeExceptionally(new IllegalStateException("SMTP connection reset"));
+
+        NotificationOutbox after = outboxRepository.findById(row.getId()).orElseThrow();
+        assertThat(after.getStatus()).isEqualTo(OutboxStatus.SENT);
+        assertThat(after.getAttempts()).isEqualTo(2);
+        assertThat(after.getLastError()).isNull();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.notification;
+
+import com.example.demo.notification.services.SmtpConnectionPool;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "notification.smtp.pool.max-messages-per-connection=10")
+@ActiveProfiles("test")
+class SmtpConnectionPoolTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("test", "test"));
+
+    @Autowired
+    private SmtpConnectionPool smtpConnectionPool;
+
+    @Autowired
+    private JavaMailSenderImpl mailSender;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+
+    // the cap holds inside one batch, not only when the connection goes back to the pool
+    @Test
+    void longBatchRotatesConnectionsAtTheCap() throws Exception {
+        double connectsBefore = connects();
+
+        List<MailException> results = smtpConnectionPool.sendAll(messages(25));
+
+        assertThat(results).containsOnlyNulls();
+        assertThat(greenMail.getReceivedMessages()).hasSize(25);
+        assertThat(connects() - connectsBefore).isEqualTo(3);
+    }
+
+
+    @Test
+    void messageThatCannotBePreparedKeepsTheConnection() throws Exception {
+        List<MimeMessage> batch = new ArrayList<>(messages(2));
+        batch.add(1, new MimeMessage(mailSender.getSession()) {
+            @Override
+            public void saveChanges() throws MessagingException {
+                throw new MessagingException("broken header");
+            }
+        });
+        double connectsBefore = connects();
+
+        List<MailException> results = smtpConnectionPool.sendAll(batch);
+
+        assertThat(results.get(0)).isNull();
+        assertThat(results.get(1)).isInstanceOf(MailPreparationException.class);
+        assertThat(results.get(2)).isNull();
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+        assertThat(connects() - connectsBefore).isEqualTo(1);
+    }
+
+
+    private double connects() {
+        return meterRegistry.counter("notification.smtp.connects").count();
+    }
+
+
+    private List<MimeMessage> messages(int count) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+            helper.setFrom("bank@example.com");
+            helper.setTo("user" + i + "@example.com");
+            helper.setSubject("Pool test " + i);
+            helper.setText("<p>hello</p>", true);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.demo.security;
+
+import com.example.demo.account.dtos.AccountDTO;
+import com.example.demo.account.entity.Account;
+import com.example.demo.account.repo.AccountRepo;
+import com.example.demo.account.services.AccountService;
+import com.example.demo.auth_users.dtos.UserDTO;
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.auth_users.repo.UserRepo;
+import com.example.demo.auth_users.services.UserService;
+import com.example.demo.enums.AccountStatus;
+import com.example.demo.enums.AccountType;
+import com.example.demo.enums.Currency;
+import com.example.demo.enums.TransactionType;
+import com.example.demo.transaction.dtos.TransactionRequest;
+import com.example.demo.transaction.services.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements per endpoint once AuthFilter has authenticated the caller: the caller comes from
+ * the principal, so an endpoint runs only the statements of its own data. Each call runs in one
+ * transaction, as open-in-view keeps one session per request. Where the response maps entities
+ * (accounts, profile), the expected count is that of the same repository call and mapping alone.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class CurrentUserQueryCountTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccountRepo accountRepository;
+
+    @Autowired
+    private UserRepo userRepository;
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private Account account;
+    private Statistics statistics;
+
+
+    @BeforeEach
+    void signIn() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        user = userRepository.save(User.builder()
+                .firstName("Query")
+                .lastName("Count")
+                .email("query-" + run + "@example.com")
+                .active(true)
+                .roles(List.of())
+                .build());
+        account = accountRepository.save(Account.builder()
+                .accountNumber(run + "0001")
+                .balance(BigDecimal.ZERO)
+                .accountType(AccountType.SAVINGS)
+                .currency(Currency.USD)
+                .status(AccountStatus.ACTIVE)
+                .user(user)
+                .build());
+        for (int i = 1; i <= 2; i++) {
+            TransactionRequest request = new TransactionRequest();
+            request.setTransactionType(TransactionType.DEPOSIT);
+            request.setAccountNumber(account.getAccountNumber());
+            request.setAmount(BigDecimal.valueOf(i));
+            request.setDescription("query count");
+            transactionService.createTransaction(request);
+        }
+
+        // what a stateless token gives AuthFilter: id, email and roles, nothing loaded
+        User claims = User.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .roles(List.of())
+                .active(true)
+                .build();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        AuthUser principal = AuthUser.builder().user(claims).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+
+    // GET /api/transactions/{accountNumber}: the account, the page's ids and its lines
+    @Test
+    void transactionHistoryRunsOnlyItsOwnQueries() {
+        assertThat(countStatements(() -> transactionService.getTransactionsForMyAccount(account.getAccountNumber(), 0, 50)))
+                .isEqualTo(3);
+        // keyset: the account and the page
+        assertThat(countStatements(() -> transactionService.getTransactionsForMyAccount(account.getAccountNumber(), "", 50)))
+                .isEqualTo(2);
+    }
+
+
+    // GET /api/accounts/me
+    @Test
+    void myAccountsLooksNothingUpForTheCaller() {
+        long ownData = countStatements(() -> accountRepository.findByUserId(user.getId())
+                .forEach(owned -> modelMapper.map(owned, AccountDTO.class)));
+
+        assertThat(countStatements(() -> accountService.getAccountsOfUser())).isEqualTo(ownData);
+    }
+
+
+    // GET /api/users/me: the profile itself is the only load of the user
+    @Test
+    void myProfileLoadsTheUserOnce() {
+        long ownData = countStatements(() -> modelMapper.map(
+                userRepository.findById(user.getId()).orElseThrow(), UserDTO.class));
+
+        assertThat(countStatements(() -> userService.getMyProfile())).isEqualTo(ownData);
+    }
+
+
+    private long countStatements(Runnable call) {
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status -> call.run());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment();
+        for (String rule : new String[]{"login", "forgot-password", "transactions"}) {
+            environment.setProperty("rate-limit." + rule + ".capacity", "2");
+            environment.setProperty("rate-limit." + rule + ".refill-per-minute", "2");
+        }
+        filter = new RateLimitFilter(new ObjectMapper(), new SimpleMeterRegistry(), environment);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "maxBuckets", 2);
+        ReflectionTestUtils.invokeMethod(filter, "init");
+    }
+
+
+    // a full map turns away only clients without a bucket; tracked clients keep their own limit
+    @Test
+    void fullMapRejectsOnlyNewClients() throws Exception {
+        assertThat(login("10.0.0.1")).isEqualTo(200);
+        assertThat(login("10.0.0.2")).isEqualTo(200);
+
+        MockHttpServletResponse rejected = loginResponse("10.0.0.3");
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("60");
+        assertThat(login("10.0.0.4")).isEqualTo(429);
+
+        assertThat(login("10.0.0.1")).isEqualTo(200);
+        assertThat(login("10.0.0.1")).isEqualTo(429);
+        assertThat(login("10.0.0.2")).isEqualTo(200);
+    }
+
+
+    // an acquire carrying an older timestamp must not move the bucket back and refill that span twice
+    @Test
+    void staleTimestampDoesNotRewindTheBucket() {
+        double tokensPerNano = 1.0 / TimeUnit.SECONDS.toNanos(1);
+        RateLimitBucket bucket = new RateLimitBucket(2, 0);
+        long later = TimeUnit.SECONDS.toNanos(10);
+
+        assertThat(bucket.tryAcquire(2, tokensPerNano, later)).isZero();
+        assertThat(bucket.tryAcquire(2, tokensPerNano, TimeUnit.SECONDS.toNanos(5))).isZero();
+        assertThat(bucket.updatedAt()).isEqualTo(later);
+        assertThat(bucket.tryAcquire(2, tokensPerNano, later)).isPositive();
+    }
+
+
+    private int login(String ip) throws Exception {
+        return loginResponse(ip).getStatus();
+    }
+
+
+    private MockHttpServletResponse loginResponse(String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
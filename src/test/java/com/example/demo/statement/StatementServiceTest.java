@@ -0,0 +1,107 @@
+package com.example.demo.statement;
+
+import com.example.demo.AccountFixture;
+import com.example.demo.account.entity.Account;
+import com.example.demo.enums.StatementRunStatus;
+import com.example.demo.notification.entity.NotificationOutbox;
+import com.example.demo.notification.repo.NotificationOutboxRepository;
+import com.example.demo.notification.services.TemplateRenderer;
+import com.example.demo.statement.entity.StatementRun;
+import com.example.demo.statement.repo.StatementFailureRepo;
+import com.example.demo.statement.repo.StatementRepo;
+import com.example.demo.statement.repo.StatementRunRepo;
+import com.example.demo.statement.services.StatementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StatementServiceTest {
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private StatementRepo statementRepo;
+
+    @Autowired
+    private StatementRunRepo statementRunRepo;
+
+    @Autowired
+    private StatementFailureRepo statementFailureRepo;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AccountFixture accountFixture;
+
+    @MockitoSpyBean
+    private TemplateRenderer templateRenderer;
+
+
+    // the statement and its email are committed together; a failed render is recorded and skipped
+    @Test
+    void runQueuesEmailsWithTheStatementsAndRecordsFailures() {
+        Account ok = accountFixture.open(BigDecimal.ZERO);
+        Account broken = accountFixture.open(BigDecimal.ZERO);
+        doThrow(new IllegalStateException("template blew up")).when(templateRenderer)
+                .render(eq("statement"), argThat((Map<String, Object> variables) ->
+                        broken.getAccountNumber().equals(variables.get("accountNumber"))));
+        YearMonth period = YearMonth.of(2001, 1);
+
+        StatementRun run = statementService.generateStatements(period);
+
+        assertThat(run.getStatus()).isEqualTo(StatementRunStatus.COMPLETED);
+        assertThat(run.getFailedAccounts()).isEqualTo(1);
+        assertThat(statementRepo.findAccountIdsWithStatement(List.of(ok.getId(), broken.getId()), period.toString()))
+                .containsExactly(ok.getId());
+        assertThat(statementFailureRepo.findByPeriod(period.toString()))
+                .extracting(failure -> failure.getAccount().getId())
+                .containsExactly(broken.getId());
+        assertThat(outboxRepository.findAll())
+                .filteredOn(row -> List.of(ok.getUser().getEmail(), broken.getUser().getEmail()).contains(row.getRecipient()))
+                .extracting(NotificationOutbox::getSubject)
+                .containsExactly("Your Account Statement for January 2001");
+    }
+
+
+    @Test
+    void runLeasedByAnotherInstanceIsLeftAlone() {
+        YearMonth period = YearMonth.of(2001, 2);
+        StatementRun held = transactionTemplate.execute(status -> statementRunRepo.save(StatementRun.builder()
+                .period(period.toString())
+                .status(StatementRunStatus.RUNNING)
+                .lastAccountId(0L)
+                .ownerToken(UUID.randomUUID().toString())
+                .leaseExpiresAt(LocalDateTime.now().plusYears(1))
+                .startedAt(LocalDateTime.now())
+                .build()));
+        accountFixture.open(BigDecimal.ZERO);
+
+        StatementRun run = statementService.generateStatements(period);
+
+        assertThat(run.getStatus()).isEqualTo(StatementRunStatus.RUNNING);
+        assertThat(run.getOwnerToken()).isEqualTo(held.getOwnerToken());
+        assertThat(run.getProcessedAccounts()).isZero();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.transaction;
+
+import com.example.demo.AccountFixture;
+import com.example.demo.account.entity.Account;
+import com.example.demo.account.repo.AccountRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "transaction.engine.mode=GROUP_COMMIT",
+        // wide enough that the three deposits below always land in one batch
+        "transaction.group-commit.max-wait-ms=500"})
+class GroupCommitLockTimeoutTest {
+
+    // past the 3s lock timeout, so the batch's attempt gives up while the replay gets the row
+    private static final long HOLD_MS = 4500;
+
+    @Autowired
+    private AccountRepo accountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AccountFixture accountFixture;
+
+
+    // the item that times out on its row lock is replayed alone; the others still share one commit
+    @Test
+    void lockTimeoutOfOneItemKeepsTheRestOfTheBatch() throws Exception {
+        List<Account> accounts = accountFixture.open(3, new BigDecimal("100.00"));
+        Account locked = accounts.get(0);
+
+        CountDownLatch held = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            accountRepository.findByIdForUpdate(locked.getId());
+            held.countDown();
+            sleep(HOLD_MS);
+        }));
+        assertThat(held.await(5, TimeUnit.SECONDS)).isTrue();
+
+        double batchedBefore = latencyCount("2-8");
+        double aloneBefore = latencyCount("1");
+
+        List<CompletableFuture<?>> deposits = new ArrayList<>();
+        for (Account account : accounts) {
+            deposits.add(CompletableFuture.supplyAsync(() -> accountFixture.deposit(account, 10)));
+        }
+        CompletableFuture.allOf(deposits.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        holder.get();
+
+        assertThat(latencyCount("2-8") - batchedBefore).isEqualTo(2);
+        assertThat(latencyCount("1") - aloneBefore).isEqualTo(1);
+        assertThat(accountRepository.findAllById(accounts.stream().map(Account::getId).toList()))
+                .extracting(Account::getBalance)
+                .allSatisfy(balance -> assertThat(balance).isEqualByComparingTo("110.00"));
+    }
+
+
+    private double latencyCount(String batchSize) {
+        return meterRegistry.get("transaction.group_commit.latency").tag("batch_size", batchSize).timer().count();
+    }
+
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.transaction;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "transaction.engine.mode=GROUP_COMMIT")
+class GroupCommitTransferStressTest extends TransferStressTestSupport {
+}
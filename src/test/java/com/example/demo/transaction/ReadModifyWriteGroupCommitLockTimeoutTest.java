@@ -0,0 +1,8 @@
+package com.example.demo.transaction;
+
+import org.springframework.test.context.TestPropertySource;
+
+// read-modify-write defers the conflicting UPDATE to the item's flush, which no repository translates
+@TestPropertySource(properties = "transaction.balance.atomic-update=false")
+class ReadModifyWriteGroupCommitLockTimeoutTest extends GroupCommitLockTimeoutTest {
+}
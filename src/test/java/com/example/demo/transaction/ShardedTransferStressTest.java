@@ -0,0 +1,7 @@
+package com.example.demo.transaction;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "transaction.engine.mode=SHARDED")
+class ShardedTransferStressTest extends TransferStressTestSupport {
+}
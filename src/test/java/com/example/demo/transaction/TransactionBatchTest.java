@@ -0,0 +1,115 @@
+package com.example.demo.transaction;
+
+import com.example.demo.AccountFixture;
+import com.example.demo.account.entity.Account;
+import com.example.demo.account.repo.AccountRepo;
+import com.example.demo.auth_users.entity.User;
+import com.example.demo.enums.TransactionStatus;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.notification.entity.NotificationOutbox;
+import com.example.demo.notification.repo.NotificationOutboxRepository;
+import com.example.demo.notification.services.TemplateVariablesCodec;
+import com.example.demo.res.Response;
+import com.example.demo.transaction.dtos.TransactionBatchResult;
+import com.example.demo.transaction.services.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionBatchTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepo accountRepository;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private TemplateVariablesCodec variablesCodec;
+
+    @Autowired
+    private AccountFixture accountFixture;
+
+
+    // items are checked against the running balance of their chunk; a rejected item fails alone
+    @Test
+    void appliesItemsInOrderAndReportsEachOne() {
+        Account account = accountFixture.open(new BigDecimal("100.00"));
+
+        String body = """
+                [{"transactionType":"DEPOSIT","amount":10,"accountNumber":"%1$s"},
+                 {"transactionType":"WITHDRAWAL","amount":500,"accountNumber":"%1$s"},
+                 {"transactionType":"WITHDRAWAL","amount":30,"accountNumber":"%1$s"}]
+                """.formatted(account.getAccountNumber());
+        Response<List<TransactionBatchResult>> response = transactionService.createTransactionBatch(stream(body));
+
+        assertThat(response.getData()).extracting(TransactionBatchResult::getIndex).containsExactly(0, 1, 2);
+        assertThat(response.getData()).extracting(TransactionBatchResult::getStatus)
+                .containsExactly(TransactionStatus.SUCCESS, TransactionStatus.FAILED, TransactionStatus.SUCCESS);
+        assertThat(response.getData().get(1).getMessage()).isEqualTo("Insufficient balance");
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo("80.00");
+    }
+
+
+    // every alert of a chunk reports the balance right after its own item, not the chunk's final one
+    @Test
+    void alertsCarryTheBalanceAfterEachItem() {
+        Account account = accountFixture.open(new BigDecimal("100.00"));
+        User owner = account.getUser();
+
+        String body = """
+                [{"transactionType":"DEPOSIT","amount":10,"accountNumber":"%1$s"},
+                 {"transactionType":"DEPOSIT","amount":20,"accountNumber":"%1$s"},
+                 {"transactionType":"WITHDRAWAL","amount":5,"accountNumber":"%1$s"}]
+                """.formatted(account.getAccountNumber());
+        transactionService.createTransactionBatch(stream(body));
+
+        List<String> balances = outboxRepository.findAll().stream()
+                .filter(row -> owner.getEmail().equals(row.getRecipient()))
+                .sorted(Comparator.comparing(NotificationOutbox::getId))
+                .map(row -> String.valueOf(variablesCodec.read(row.getTemplateVariables()).get("balance")))
+                .toList();
+        assertThat(balances).containsExactly("110.00", "130.00", "125.00");
+    }
+
+
+    // a non-object element rejects the batch with its index instead of silently ending it there
+    @Test
+    void malformedItemRejectsTheBatch() {
+        Account account = accountFixture.open(new BigDecimal("100.00"));
+
+        String body = """
+                [{"transactionType":"DEPOSIT","amount":10,"accountNumber":"%1$s"},
+                 null,
+                 {"transactionType":"DEPOSIT","amount":20,"accountNumber":"%1$s"}]
+                """.formatted(account.getAccountNumber());
+
+        assertThatThrownBy(() -> transactionService.createTransactionBatch(stream(body)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageStartingWith("Item 1 of the batch is not a JSON object");
+        // the item before it was still in the open chunk, so nothing was applied
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo("100.00");
+    }
+
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.demo.transaction;
+
+import com.example.demo.AccountFixture;
+import com.example.demo.account.entity.Account;
+import com.example.demo.account.repo.AccountRepo;
+import com.example.demo.enums.LedgerEntryType;
+import com.example.demo.enums.TransactionEngineMode;
+import com.example.demo.enums.TransactionType;
+import com.example.demo.exceptions.InsufficientBalanceException;
+import com.example.demo.transaction.dtos.TransactionRequest;
+import com.example.demo.transaction.services.TransactionService;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers transfers from many threads and checks that money is neither created nor lost:
+ * the total over the accounts is unchanged, no balance goes negative and every account's
+ * balance matches its ledger postings. Each engine mode runs the same workloads in its own
+ * subclass; TransferEngineBenchmark drives the same workloads to compare the modes' throughput.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Slf4j
+abstract class TransferStressTestSupport {
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 200;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepo accountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AccountFixture accountFixture;
+
+    @Value("${transaction.engine.mode}")
+    protected TransactionEngineMode engineMode;
+
+    protected record Outcome(int succeeded, int rejected, List<Throwable> failures, double transfersPerSecond) {
+    }
+
+
+    // every thread moves money both ways between the same two rows: the deadlock-prone case
+    @Test
+    void opposingTransfersOnOnePairConserveTheTotal() throws Exception {
+        List<Account> accounts = openAccounts(2);
+
+        Outcome outcome = transferConcurrently("opposing pair", accounts);
+
+        assertConserved(accounts, outcome);
+    }
+
+
+    @Test
+    void randomTransfersAcrossManyAccountsConserveTheTotal() throws Exception {
+        List<Account> accounts = openAccounts(20);
+
+        Outcome outcome = transferConcurrently("20 accounts", accounts);
+
+        assertConserved(accounts, outcome);
+    }
+
+
+    protected Outcome transferConcurrently(String workload, List<Account> accounts) throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(accounts.size());
+                    int to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+                    try {
+                        transactionService.createTransaction(transfer(accounts.get(from), accounts.get(to),
+                                BigDecimal.valueOf(random.nextInt(1, 5000), 2)));
+                        succeeded.incrementAndGet();
+                    } catch (InsufficientBalanceException e) {
+                        rejected.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        pool.shutdown();
+
+        Outcome outcome = new Outcome(succeeded.get(), rejected.get(), List.copyOf(failures),
+                (succeeded.get() + rejected.get()) / seconds);
+        log.info("mode={} workload=\"{}\" threads={} transfers={} succeeded={} rejected={} failed={} -> {} transfers/s",
+                engineMode, workload, THREADS, THREADS * TRANSFERS_PER_THREAD, outcome.succeeded(),
+                outcome.rejected(), outcome.failures().size(), String.format("%.0f", outcome.transfersPerSecond()));
+        return outcome;
+    }
+
+
+    private void assertConserved(List<Account> accounts, Outcome outcome) {
+        assertThat(outcome.failures()).as("lock timeouts, deadlocks or other errors").isEmpty();
+        assertThat(outcome.succeeded() + outcome.rejected()).isEqualTo(THREADS * TRANSFERS_PER_THREAD);
+
+        List<Long> ids = accounts.stream().map(Account::getId).toList();
+        Map<Long, BigDecimal> balances = accountRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Account::getId, Account::getBalance));
+
+        BigDecimal total = balances.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(total).isEqualByComparingTo(OPENING_BALANCE.multiply(BigDecimal.valueOf(accounts.size())));
+        assertThat(balances.values()).allSatisfy(balance -> assertThat(balance).isGreaterThanOrEqualTo(BigDecimal.ZERO));
+
+        Map<Long, BigDecimal> posted = postedNetById(ids);
+        for (Long id : ids) {
+            BigDecimal expected = OPENING_BALANCE.add(posted.getOrDefault(id, BigDecimal.ZERO));
+            assertThat(balances.get(id)).as("balance of account %d against its ledger", id).isEqualByComparingTo(expected);
+        }
+    }
+
+
+    // credits minus debits per account, straight from the ledger
+    private Map<Long, BigDecimal> postedNetById(List<Long> ids) {
+        List<Object[]> rows = entityManager.createQuery(
+                        "SELECT e.account.id, SUM(CASE WHEN e.entryType = :credit THEN e.amount ELSE -e.amount END) " +
+                                "FROM LedgerEntry e WHERE e.account.id IN :ids GROUP BY e.account.id", Object[].class)
+                .setParameter("credit", LedgerEntryType.CREDIT)
+                .setParameter("ids", ids)
+                .getResultList();
+        return rows.stream().collect(Collectors.toMap(row -> (Long) row[0], row -> (BigDecimal) row[1]));
+    }
+
+
+    protected List<Account> openAccounts(int count) {
+        return accountFixture.open(count, OPENING_BALANCE);
+    }
+
+
+    private static TransactionRequest transfer(Account from, Account to, BigDecimal amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setTransactionType(TransactionType.TRANSFER);
+        request.setAccountNumber(from.getAccountNumber());
+        request.setDestinationAccountNumber(to.getAccountNumber());
+        request.setAmount(amount);
+        request.setDescription("stress");
+        return request;
+    }
+}